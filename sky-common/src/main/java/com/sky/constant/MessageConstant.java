@@ -24,5 +24,7 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String CURSOR_INVALID = "分页游标无效";
+    public static final String CATALOG_UNAVAILABLE = "菜单数据暂不可用，请稍后重试";
 
 }
\ No newline at end of file
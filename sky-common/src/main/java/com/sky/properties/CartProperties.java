@@ -0,0 +1,22 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cart")
+@Data
+public class CartProperties {
+
+    private String store = "mysql"; //购物车存储：mysql、redis、memory
+
+    /**
+     * Redis购物车配置
+     */
+    private Duration ttl = Duration.ofDays(7); //购物车在Redis中的过期时间，过期后从MySQL重新加载
+    private int flushBatchSize = 200; //每次回写MySQL的用户数
+
+}
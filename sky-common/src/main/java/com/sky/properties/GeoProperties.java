@@ -0,0 +1,36 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.geo")
+@Data
+public class GeoProperties {
+
+    /**
+     * 地址解析、路线距离缓存配置
+     */
+    private Duration cacheTtl = Duration.ofDays(7); //缓存过期时间（本地缓存与Redis共用）
+    private long cacheMaxSize = 10000; //本地缓存最大条目数
+
+    /**
+     * 配送范围，单位：米
+     */
+    private int deliveryRadius = 5000;
+
+    /**
+     * 配送范围网格配置
+     */
+    private double gridCellSize = 200; //网格边长，单位：米
+    private double detourFactor = 1.4; //绕路系数，直线距离乘以该系数仍在配送范围内的网格直接判定可配送
+
+    /**
+     * 存量地址补全坐标，每批处理条数
+     */
+    private int backfillBatchSize = 100;
+
+}
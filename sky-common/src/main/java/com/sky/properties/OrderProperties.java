@@ -0,0 +1,45 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order")
+@Data
+public class OrderProperties {
+
+    /**
+     * 订单号生成配置
+     */
+    private Integer workerId; //机器id（0~1023），不配置时通过Redis租约自动分配
+    private Duration workerLeaseTtl = Duration.ofMinutes(5); //机器id租约有效期
+    private long maxClockBackwardMillis = 5000; //可容忍的时钟回拨毫秒数
+
+    /**
+     * 存量订单补建搜索索引时每批处理的订单数
+     */
+    private int searchBackfillBatchSize = 500;
+
+    /**
+     * 待支付订单超时时间，超时后自动取消
+     */
+    private Duration paymentTimeout = Duration.ofMinutes(15);
+
+    /**
+     * 订单事件分发配置
+     */
+    private Event event = new Event();
+
+    @Data
+    public static class Event {
+        private int workers = 2; //分发线程数
+        private int queueCapacity = 1000; //等待分发的事件数上限，超出的事件由定时补偿任务处理
+        private int maxRetries = 10; //最大重试次数
+        private Duration lease = Duration.ofMinutes(1); //领取事件后的处理租约，超时未完成的事件会被重新分发
+        private int relayBatchSize = 100; //定时补偿任务每次处理的事件数
+        private Duration retention = Duration.ofDays(7); //已处理事件的保留时间
+    }
+}
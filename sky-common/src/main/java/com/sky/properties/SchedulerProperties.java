@@ -0,0 +1,24 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "sky.scheduler")
+@Data
+public class SchedulerProperties {
+
+    /**
+     * 集群定时任务协调存储：redis、memory（仅用于单节点开发和测试）
+     */
+    private String store = "redis";
+
+    /**
+     * 节点心跳超时时间，超时未心跳的节点不再参与分片
+     */
+    private Duration nodeTtl = Duration.ofSeconds(30);
+
+}
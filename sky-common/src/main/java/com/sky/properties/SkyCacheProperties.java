@@ -0,0 +1,74 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class SkyCacheProperties {
+
+    /**
+     * Redis值序列化配置
+     */
+    private String valueCodec = "json"; //写入格式：json（读取兼容JDK序列化的旧数据）、jdk（滚动发布期间使用）
+    private int compressThreshold = 1024; //JSON超过该字节数时压缩
+
+    /**
+     * Spring Cache（@Cacheable）缓存过期时间，旧版本的缓存到期后自动删除
+     */
+    private Duration defaultTtl = Duration.ofDays(1);
+
+    /**
+     * 各Spring Cache的配置，key为缓存名称
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * C端菜单缓存配置（本地缓存 + Redis）
+     */
+    private Menu menu = new Menu();
+
+    /**
+     * 启动预热配置
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * C端菜单快照配置
+     */
+    private Catalog catalog = new Catalog();
+
+    @Data
+    public static class Spec {
+        private Duration ttl; //Redis缓存过期时间，为空时使用 defaultTtl
+        private Duration localTtl = Duration.ofMinutes(5); //本地缓存过期时间
+        private long localMaxSize = 1000; //本地缓存最大条目数
+    }
+
+    @Data
+    public static class Menu {
+        private long localMaxSize = 1000; //本地缓存最大条目数
+        private Duration localTtl = Duration.ofMinutes(10); //本地缓存过期时间
+        private Duration redisTtl = Duration.ofDays(1); //Redis缓存过期时间，旧版本的缓存到期后自动删除
+        private Duration negativeTtl = Duration.ofMinutes(5); //空结果的缓存过期时间
+        private double earlyRefreshBeta = 1.0; //提前刷新系数，越大越早刷新，0表示不提前刷新
+    }
+
+    @Data
+    public static class Warmup {
+        private boolean enabled = true; //是否在启动时预热缓存
+        private int jitIterations = 200; //预热JIT时重复执行热点请求的次数
+    }
+
+    @Data
+    public static class Catalog {
+        private int historySize = 20; //保留的历史快照数量，客户端版本早于最早的历史快照时返回全量数据
+        private Duration snapshotTtl = Duration.ofHours(1); //Redis中各版本快照数据的过期时间，各节点在此期间内按同一份数据构建该版本
+    }
+}
@@ -0,0 +1,100 @@
+package com.sky.utils;
+
+/**
+ * 配送范围网格索引
+ * 以店铺为中心，将配送半径覆盖的区域划分为等边长的网格，预先计算每个网格相对配送范围的位置：
+ *   INSIDE：网格内任意一点的直线距离乘以绕路系数后仍在配送范围内，直接判定可配送
+ *   OUTSIDE：网格内任意一点的直线距离都超出配送范围（驾车距离不会小于直线距离），直接判定不可配送
+ *   BORDERLINE：无法确定，需要调用路线规划接口
+ * 查询只做坐标换算和数组下标访问，不创建对象
+ */
+public class DeliveryZoneGrid {
+
+    public static final byte INSIDE = 1;
+    public static final byte OUTSIDE = 2;
+    public static final byte BORDERLINE = 3;
+
+    // 每纬度对应的距离（米）
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final double centerLng;
+    private final double centerLat;
+    private final int radius;
+    private final double metersPerDegreeLng;
+    private final double cellSize;
+    private final double halfExtent;
+    private final int cellsPerSide;
+    private final byte[] cells;
+
+    /**
+     * @param centerLng    店铺经度
+     * @param centerLat    店铺纬度
+     * @param radius       配送范围，单位：米
+     * @param cellSize     网格边长，单位：米
+     * @param detourFactor 绕路系数：驾车距离与直线距离之比的上限估计
+     */
+    public DeliveryZoneGrid(double centerLng, double centerLat, int radius, double cellSize, double detourFactor) {
+        if (radius <= 0 || cellSize <= 0 || detourFactor < 1) {
+            throw new IllegalArgumentException("配送范围网格参数错误");
+        }
+        this.centerLng = centerLng;
+        this.centerLat = centerLat;
+        this.radius = radius;
+        this.metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(centerLat));
+        this.cellSize = cellSize;
+        this.cellsPerSide = (int) Math.ceil(2.0 * radius / cellSize);
+        this.halfExtent = cellsPerSide * cellSize / 2;
+        this.cells = new byte[cellsPerSide * cellsPerSide];
+
+        for (int y = 0; y < cellsPerSide; y++) {
+            double minY = y * cellSize - halfExtent;
+            double maxY = minY + cellSize;
+            for (int x = 0; x < cellsPerSide; x++) {
+                double minX = x * cellSize - halfExtent;
+                double maxX = minX + cellSize;
+
+                // 网格到店铺的最近、最远直线距离
+                double nearX = Math.max(0, Math.max(minX, -maxX));
+                double nearY = Math.max(0, Math.max(minY, -maxY));
+                double farX = Math.max(Math.abs(minX), Math.abs(maxX));
+                double farY = Math.max(Math.abs(minY), Math.abs(maxY));
+                double near = Math.hypot(nearX, nearY);
+                double far = Math.hypot(farX, farY);
+
+                byte zone;
+                if (near > radius) {
+                    zone = OUTSIDE;
+                } else if (far * detourFactor <= radius) {
+                    zone = INSIDE;
+                } else {
+                    zone = BORDERLINE;
+                }
+                cells[y * cellsPerSide + x] = zone;
+            }
+        }
+    }
+
+    /**
+     * 查询坐标所在网格的位置
+     */
+    public byte locate(double lng, double lat) {
+        double x = (lng - centerLng) * metersPerDegreeLng + halfExtent;
+        double y = (lat - centerLat) * METERS_PER_DEGREE + halfExtent;
+        if (x < 0 || y < 0) {
+            return OUTSIDE;
+        }
+        int ix = (int) (x / cellSize);
+        int iy = (int) (y / cellSize);
+        if (ix >= cellsPerSide || iy >= cellsPerSide) {
+            return OUTSIDE;
+        }
+        return cells[iy * cellsPerSide + ix];
+    }
+
+    /**
+     * 网格是否由给定的店铺坐标和配送范围构建
+     */
+    public boolean matches(double centerLng, double centerLat, int radius) {
+        return this.centerLng == centerLng && this.centerLat == centerLat && this.radius == radius;
+    }
+}
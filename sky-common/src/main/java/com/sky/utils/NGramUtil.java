@@ -0,0 +1,33 @@
+package com.sky.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * n-gram 切分工具，用于订单号、手机号的模糊搜索索引
+ * 写入时保存字段值的所有n-gram，查询时取关键字的所有n-gram，包含全部n-gram的记录即为候选结果
+ */
+public class NGramUtil {
+
+    // 每个gram的长度，关键字短于该长度时无法使用索引
+    public static final int GRAM_SIZE = 3;
+
+    private NGramUtil() {
+    }
+
+    /**
+     * 切分出所有不重复的gram，长度不足 GRAM_SIZE 时返回空集合
+     */
+    public static List<String> grams(String value) {
+        if (value == null || value.length() < GRAM_SIZE) {
+            return new ArrayList<>();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return new ArrayList<>(grams);
+    }
+}
@@ -0,0 +1,117 @@
+package com.sky.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法id生成器（无锁实现）
+ * 结构：41位时间戳（相对起始时间的毫秒数） + 10位机器id + 12位毫秒内序列号
+ * 时间戳和序列号保存在同一个AtomicLong中，通过CAS更新，单节点每毫秒最多生成4096个id
+ * 时钟回拨时沿用上次的时间戳继续分配序列号，回拨超过容忍值时抛出异常
+ * 序列号用尽时自旋等待时钟进入下一毫秒，不提前借用后续毫秒，避免持续高负载下时间戳越跑越快被误判为时钟回拨
+ * 机器id通过租约分配时可设置租约到期时间，到期后拒绝生成id，直到续期或换用新的机器id
+ */
+public class SnowflakeIdGenerator {
+
+    // 起始时间 2024-01-01 00:00:00 UTC
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long maxBackwardMillis;
+
+    // 当前机器id及其租约到期时间
+    private volatile Lease lease;
+
+    // 高位：上次分配的时间戳，低12位：序列号
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param workerId          机器id，取值范围 0 ~ 1023
+     * @param maxBackwardMillis 可容忍的时钟回拨毫秒数
+     */
+    public SnowflakeIdGenerator(long workerId, long maxBackwardMillis) {
+        this(workerId, Long.MAX_VALUE, maxBackwardMillis);
+    }
+
+    /**
+     * @param workerId          机器id，取值范围 0 ~ 1023
+     * @param expireAt          机器id租约到期时间（毫秒时间戳）
+     * @param maxBackwardMillis 可容忍的时钟回拨毫秒数
+     */
+    public SnowflakeIdGenerator(long workerId, long expireAt, long maxBackwardMillis) {
+        this.lease = new Lease(checkWorkerId(workerId), expireAt);
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    /**
+     * 租约续期或换用新的机器id
+     */
+    public void renew(long workerId, long expireAt) {
+        this.lease = new Lease(checkWorkerId(workerId), expireAt);
+    }
+
+    /**
+     * 生成下一个id
+     */
+    public long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Lease current = lease;
+            if (now >= current.expireAt) {
+                // 机器id可能已被其他节点占用，继续生成会产生重复id
+                throw new IllegalStateException("机器id租约已失效，拒绝生成id：" + current.workerId);
+            }
+            long last = state.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+
+            long timestamp;
+            long sequence;
+            if (now > lastTimestamp) {
+                timestamp = now;
+                sequence = 0;
+            } else {
+                if (lastTimestamp - now > maxBackwardMillis) {
+                    throw new IllegalStateException("时钟回拨" + (lastTimestamp - now) + "毫秒，拒绝生成id");
+                }
+                timestamp = lastTimestamp;
+                sequence = (last & SEQUENCE_MASK) + 1;
+                if (sequence > SEQUENCE_MASK) {
+                    // 当前毫秒序列号用尽，等待时钟进入下一毫秒
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
+
+            if (state.compareAndSet(last, (timestamp << SEQUENCE_BITS) | sequence)) {
+                return ((timestamp - EPOCH) << (WORKER_ID_BITS + SEQUENCE_BITS))
+                        | (current.workerId << SEQUENCE_BITS)
+                        | sequence;
+            }
+        }
+    }
+
+    public long getWorkerId() {
+        return lease.workerId;
+    }
+
+    private static long checkWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("机器id超出范围：" + workerId);
+        }
+        return workerId;
+    }
+
+    private static class Lease {
+        private final long workerId;
+        private final long expireAt;
+
+        Lease(long workerId, long expireAt) {
+            this.workerId = workerId;
+            this.expireAt = expireAt;
+        }
+    }
+}
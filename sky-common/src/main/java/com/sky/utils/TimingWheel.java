@@ -0,0 +1,172 @@
+package com.sky.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层时间轮，用于大量延时任务的到期检查
+ * 第一层每格 tickMillis，共 wheelSize 格；超出该层范围的任务放入上一层（每格为下一层的总跨度），
+ * 随时间推进逐层下移；加入、删除为O(1)，推进时只处理到期的格子
+ * 删除为延迟删除：只从登记表中移除，格子中的旧记录到期时忽略
+ * 各方法已同步，由调用方定期调用 advance 推进
+ */
+public class TimingWheel {
+
+    private final Level root;
+
+    // 任务id -> 到期时间
+    private final Map<Long, Long> deadlines = new HashMap<>();
+
+    // 加入时已到期的任务（任务id, 到期时间），下次推进时返回
+    private final List<long[]> overdue = new ArrayList<>();
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.root = new Level(tickMillis, wheelSize, startMillis);
+    }
+
+    /**
+     * 加入任务，同一id重复加入时以最后一次的到期时间为准
+     */
+    public synchronized void add(long id, long deadline) {
+        deadlines.put(id, deadline);
+        if (!root.add(id, deadline)) {
+            overdue.add(new long[]{id, deadline});
+        }
+    }
+
+    /**
+     * 删除任务
+     */
+    public synchronized void remove(long id) {
+        deadlines.remove(id);
+    }
+
+    /**
+     * 任务数量
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * 推进到当前时间，返回已到期的任务id
+     */
+    public synchronized List<Long> advance(long now) {
+        List<long[]> expired = new ArrayList<>(overdue);
+        overdue.clear();
+        if (deadlines.isEmpty()) {
+            // 没有任务时直接跳到当前时间
+            root.reset(now);
+        } else {
+            root.advance(now, expired);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (long[] entry : expired) {
+            Long deadline = deadlines.get(entry[0]);
+            // 已删除或重新加入的任务忽略旧记录
+            if (deadline != null && deadline == entry[1]) {
+                deadlines.remove(entry[0]);
+                ids.add(entry[0]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 时间轮的一层
+     */
+    private static class Level {
+
+        private final long tickMillis;
+        private final int wheelSize;
+        private final long interval;
+        private final Map<Long, Long>[] buckets;
+
+        // 当前格子的起始时间，之前的任务都已处理
+        private long currentTime;
+
+        // 上一层时间轮
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Map[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new HashMap<>();
+            }
+            this.currentTime = startMillis - startMillis % tickMillis;
+        }
+
+        /**
+         * 加入任务，已到期时返回false
+         */
+        boolean add(long id, long deadline) {
+            if (deadline < currentTime) {
+                return false;
+            }
+            if (deadline < currentTime + interval) {
+                bucket(deadline).put(id, deadline);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, wheelSize, currentTime);
+            }
+            return overflow.add(id, deadline);
+        }
+
+        /**
+         * 第一层：逐格推进，整格已过去的任务到期
+         */
+        void advance(long now, List<long[]> expired) {
+            while (now >= currentTime + tickMillis) {
+                drain(bucket(currentTime), expired);
+                currentTime += tickMillis;
+                if (overflow != null) {
+                    overflow.cascade(currentTime, this, expired);
+                }
+            }
+        }
+
+        /**
+         * 上层：下一层推进到某一格的起始时间后，将该格的任务下移到下一层
+         */
+        void cascade(long lowerTime, Level lower, List<long[]> expired) {
+            while (lowerTime >= currentTime) {
+                Map<Long, Long> bucket = bucket(currentTime);
+                bucket.forEach((id, deadline) -> {
+                    if (!lower.add(id, deadline)) {
+                        expired.add(new long[]{id, deadline});
+                    }
+                });
+                bucket.clear();
+                currentTime += tickMillis;
+                if (overflow != null) {
+                    overflow.cascade(currentTime, this, expired);
+                }
+            }
+        }
+
+        void reset(long now) {
+            for (Map<Long, Long> bucket : buckets) {
+                bucket.clear();
+            }
+            currentTime = now - now % tickMillis;
+            overflow = null;
+        }
+
+        private void drain(Map<Long, Long> bucket, List<long[]> expired) {
+            bucket.forEach((id, deadline) -> expired.add(new long[]{id, deadline}));
+            bucket.clear();
+        }
+
+        private Map<Long, Long> bucket(long time) {
+            return buckets[(int) ((time / tickMillis) % wheelSize)];
+        }
+    }
+}
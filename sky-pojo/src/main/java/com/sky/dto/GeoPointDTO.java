@@ -0,0 +1,33 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 经纬度坐标（百度 bd09ll 坐标系）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeoPointDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    //经度
+    private double lng;
+
+    //纬度
+    private double lat;
+
+    /**
+     * 转换为百度接口使用的 "经度,纬度" 字符串
+     */
+    public String toLngLat() {
+        return String.format("%.6f,%.6f", lng, lat);
+    }
+}
@@ -0,0 +1,9 @@
+package com.sky.dto;
+
+import lombok.Data;
+
+@Data
+public class StatusCountDTO {
+    private Integer status;
+    private Integer count;
+}
@@ -62,4 +62,16 @@ public class AddressBook implements Serializable {
 
     //是否默认 0否 1是
     private Integer isDefault;
+
+    //经度（地址解析结果，为空表示尚未解析）
+    private Double lng;
+
+    //纬度
+    private Double lat;
+
+    //是否在配送范围内 0否 1是
+    private Integer deliverable;
+
+    //店铺到该地址的驾车距离，单位：米
+    private Integer distance;
 }
\ No newline at end of file
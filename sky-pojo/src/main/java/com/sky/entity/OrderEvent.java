@@ -0,0 +1,68 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 订单事件（事务发件箱），与订单修改在同一事务中写入，提交后异步分发给各订阅者
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent implements Serializable {
+
+    /**
+     * 事件类型 1下单 2状态变更 3催单
+     */
+    public static final Integer CREATED = 1;
+    public static final Integer STATUS_CHANGED = 2;
+    public static final Integer REMINDER = 3;
+
+    /**
+     * 处理状态 0待处理 1已处理 2重试次数用尽
+     */
+    public static final Integer PENDING = 0;
+    public static final Integer DONE = 1;
+    public static final Integer FAILED = 2;
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    //事件类型
+    private Integer type;
+
+    //订单id
+    private Long orderId;
+
+    //订单号
+    private String orderNumber;
+
+    //原状态
+    private Integer fromStatus;
+
+    //新状态
+    private Integer toStatus;
+
+    //处理状态
+    private Integer status;
+
+    //已重试次数
+    private Integer retryCount;
+
+    //下次处理时间，处理中的事件为处理租约的到期时间
+    private LocalDateTime nextRetryTime;
+
+    //已处理成功的订阅者，逗号分隔，重试时跳过
+    private String delivered;
+
+    private LocalDateTime createTime;
+}
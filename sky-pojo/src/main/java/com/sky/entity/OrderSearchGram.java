@@ -0,0 +1,30 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 订单搜索索引（order_search_gram）的一行：订单号或手机号中的一个n-gram
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchGram implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    //索引字段 1订单号 2手机号
+    private Integer field;
+
+    private String gram;
+
+    //订单id
+    private Long orderId;
+}
@@ -0,0 +1,59 @@
+package com.sky.vo;
+
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * C端菜单同步结果
+ * 全量同步时包含所有起售的数据；增量同步时只包含新增或修改的数据，以及被删除、停售的数据id
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSyncVO implements Serializable {
+
+    //当前菜单版本号，下次同步时传入
+    private Long version;
+
+    //是否为全量数据
+    private Boolean full;
+
+    //新增或修改的分类
+    @Builder.Default
+    private List<Category> categories = new ArrayList<>();
+
+    //新增或修改的菜品（含口味）
+    @Builder.Default
+    private List<DishVO> dishes = new ArrayList<>();
+
+    //新增或修改的套餐
+    @Builder.Default
+    private List<Setmeal> setmeals = new ArrayList<>();
+
+    //新增或修改的套餐包含的菜品，key为套餐id
+    @Builder.Default
+    private Map<Long, List<DishItemVO>> setmealDishes = new HashMap<>();
+
+    //被删除或停用的分类id
+    @Builder.Default
+    private List<Long> removedCategoryIds = new ArrayList<>();
+
+    //被删除或停售的菜品id
+    @Builder.Default
+    private List<Long> removedDishIds = new ArrayList<>();
+
+    //被删除或停售的套餐id
+    @Builder.Default
+    private List<Long> removedSetmealIds = new ArrayList<>();
+}
@@ -4,12 +4,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Slf4j
 @EnableCaching // 开启缓存功能
 @EnableScheduling // 开启定时任务功能(任务调度)
+@EnableAsync // 开启异步任务
 @SpringBootApplication // 开启 Spring Boot 应用
 @EnableTransactionManagement // 开启注解方式的事务管理
 public class SkyApplication {
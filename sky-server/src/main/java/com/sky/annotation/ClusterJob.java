@@ -0,0 +1,28 @@
+package com.sky.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自定义注解，用于标识集群中只执行一次的定时任务
+ * 默认每次触发时争抢租约锁，只有取得锁的节点执行；sharded 为 true 时所有存活节点都执行，
+ * 各节点通过 ClusterJobContext 获取分片序号，只处理属于自己的数据
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterJob {
+    //任务名称，用作锁的key
+    String value();
+
+    //锁的租约时间（秒），应大于任务的最长执行时间，节点宕机后租约到期自动释放
+    long leaseSeconds() default 600;
+
+    //锁的最短持有时间（秒），任务很快执行完时其他节点的同一次触发也不会再次执行
+    //只对按cron触发（各节点同一时刻触发）的任务有效，fixedDelay任务各节点的触发时间不一致，应改用cron
+    long minHoldSeconds() default 30;
+
+    //是否按节点分片执行
+    boolean sharded() default false;
+}
@@ -0,0 +1,76 @@
+package com.sky.aspect;
+
+import com.sky.annotation.ClusterJob;
+import com.sky.scheduler.ClusterJobContext;
+import com.sky.scheduler.ClusterNode;
+import com.sky.scheduler.ClusterStore;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 集群定时任务切面：执行 @ClusterJob 标注的方法前取得租约锁或分片，未取得锁时跳过本次执行
+ */
+@Slf4j
+@Aspect
+@Component
+public class ClusterJobAspect {
+
+    private final ClusterStore clusterStore;
+    private final ClusterNode clusterNode;
+
+    @Autowired
+    public ClusterJobAspect(ClusterStore clusterStore, ClusterNode clusterNode) {
+        this.clusterStore = clusterStore;
+        this.clusterNode = clusterNode;
+    }
+
+    @Around("@annotation(clusterJob)")
+    public Object around(ProceedingJoinPoint joinPoint, ClusterJob clusterJob) throws Throwable {
+        String name = clusterJob.value();
+        String owner = clusterNode.getNodeId();
+
+        if (clusterJob.sharded()) {
+            // 分片执行：各节点只处理自己的分片，不加锁
+            ClusterJobContext.set(new ClusterJobContext(name, owner, null,
+                    clusterNode.getShardIndex(), clusterNode.getShardTotal(), clusterStore));
+            try {
+                return joinPoint.proceed();
+            } finally {
+                ClusterJobContext.clear();
+            }
+        }
+
+        Long token;
+        try {
+            token = clusterStore.tryAcquire(name, owner, Duration.ofSeconds(clusterJob.leaseSeconds()));
+        } catch (Exception e) {
+            log.error("获取定时任务锁失败，跳过本次执行：{}", name, e);
+            return null;
+        }
+        if (token == null) {
+            log.debug("定时任务正在其他节点执行，跳过：{}", name);
+            return null;
+        }
+
+        long start = System.currentTimeMillis();
+        ClusterJobContext.set(new ClusterJobContext(name, owner, token, 0, 1, clusterStore));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ClusterJobContext.clear();
+            // 保留锁至最短持有时间，避免其他节点的同一次触发再次执行
+            Duration remaining = Duration.ofSeconds(clusterJob.minHoldSeconds()).minusMillis(System.currentTimeMillis() - start);
+            try {
+                clusterStore.release(name, owner, token, remaining);
+            } catch (Exception e) {
+                log.error("释放定时任务锁失败，等待租约过期：{}", name, e);
+            }
+        }
+    }
+}
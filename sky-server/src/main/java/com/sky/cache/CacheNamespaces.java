@@ -0,0 +1,88 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 缓存命名空间版本号
+ * 缓存key中带有命名空间的版本号（构造规则：命名空间:v版本号:key），清理整个命名空间只需将 命名空间:ver 加1，
+ * 旧版本的缓存不再被访问，过期后由Redis自动删除，无需使用KEYS扫描
+ * 各节点在本地保存版本号，版本号变更时通过Redis发布订阅通知，并定期从Redis刷新，防止丢失通知
+ */
+@Slf4j
+@Component
+public class CacheNamespaces implements MessageListener {
+
+    // 版本号变更通知频道，消息内容：命名空间=版本号
+    public static final String BUMP_CHANNEL = "cache:ns:bump";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LoadingCache<String, Long> versions;
+
+    @Autowired
+    public CacheNamespaces(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.versions = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofSeconds(5))
+                .build(this::loadVersion);
+    }
+
+    /**
+     * 获取命名空间当前版本号
+     */
+    public long version(String namespace) {
+        return versions.get(namespace);
+    }
+
+    /**
+     * 构造带版本号的缓存key
+     */
+    public String key(String namespace, Object key) {
+        return namespace + ":v" + version(namespace) + ":" + key;
+    }
+
+    /**
+     * 清理命名空间下的所有缓存：版本号加1并通知其他节点
+     */
+    public long bump(String namespace) {
+        Long version = stringRedisTemplate.opsForValue().increment(versionKey(namespace));
+        long newVersion = version == null ? 0 : version;
+        versions.put(namespace, newVersion);
+        stringRedisTemplate.convertAndSend(BUMP_CHANNEL, namespace + "=" + newVersion);
+        log.info("缓存命名空间版本号更新：{} -> {}", namespace, newVersion);
+        return newVersion;
+    }
+
+    /**
+     * 收到其他节点的版本号变更通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] channel) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.lastIndexOf('=');
+        if (index > 0) {
+            String namespace = body.substring(0, index);
+            long version = Long.parseLong(body.substring(index + 1));
+            // 只接受更大的版本号，避免乱序消息导致版本回退
+            versions.asMap().merge(namespace, version, Math::max);
+        }
+    }
+
+    private Long loadVersion(String namespace) {
+        String version = stringRedisTemplate.opsForValue().get(versionKey(namespace));
+        return version == null ? 0L : Long.parseLong(version);
+    }
+
+    private static String versionKey(String namespace) {
+        return namespace + ":ver";
+    }
+}
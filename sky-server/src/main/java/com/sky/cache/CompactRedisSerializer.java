@@ -0,0 +1,133 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.sky.json.JacksonObjectMapper;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Redis值序列化器：带类型信息的JSON（日期格式与 JacksonObjectMapper 一致），超过阈值时使用deflate压缩
+ * 数据格式：1字节格式标识 + 内容，0x01 JSON，0x02 deflate压缩的JSON
+ * 兼容读取JDK序列化的旧数据（以 0xACED 开头），writeJson 为 false 时仍按JDK序列化写入，用于滚动发布期间新旧节点共存
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte FORMAT_JSON = 0x01;
+    private static final byte FORMAT_DEFLATE = 0x02;
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer;
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+    private final boolean writeJson;
+    private final int compressThreshold;
+
+    /**
+     * @param writeJson         是否按JSON格式写入，false时按JDK序列化写入
+     * @param compressThreshold JSON超过该字节数时压缩
+     */
+    public CompactRedisSerializer(boolean writeJson, int compressThreshold) {
+        this.writeJson = writeJson;
+        this.compressThreshold = compressThreshold;
+
+        ObjectMapper objectMapper = new JacksonObjectMapper();
+        // 只允许项目及JDK中的类型，防止反序列化任意类
+        BasicPolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.sky.")
+                .allowIfSubType("java.")
+                .allowIfSubType("org.springframework.cache.support.NullValue")
+                .build();
+        objectMapper.activateDefaultTyping(validator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, "@class");
+        this.jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!writeJson) {
+            return jdkSerializer.serialize(value);
+        }
+
+        byte[] json = jsonSerializer.serialize(value);
+        if (json.length > compressThreshold) {
+            return withFormat(FORMAT_DEFLATE, deflate(json));
+        }
+        return withFormat(FORMAT_JSON, json);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        switch (bytes[0]) {
+            case FORMAT_JSON:
+                return jsonSerializer.deserialize(Arrays.copyOfRange(bytes, 1, bytes.length));
+            case FORMAT_DEFLATE:
+                return jsonSerializer.deserialize(inflate(bytes));
+            default:
+                // 无格式标识的数据（如通过INCR写入的数字）按普通JSON读取
+                return jsonSerializer.deserialize(bytes);
+        }
+    }
+
+    private static byte[] withFormat(byte format, byte[] content) {
+        byte[] bytes = new byte[content.length + 1];
+        bytes[0] = format;
+        System.arraycopy(content, 0, bytes, 1, content.length);
+        return bytes;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("压缩数据不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("压缩数据解析失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
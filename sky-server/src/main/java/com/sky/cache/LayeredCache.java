@@ -0,0 +1,172 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 两级Spring缓存：本地缓存（L1，Caffeine） + Redis（L2）
+ * 本地缓存的key带有命名空间版本号，清理全部缓存（更新版本号）后各节点的旧数据自动失效；
+ * 清理单个key时通过 evictListener 通知其他节点清理本地缓存
+ * 同一个key未命中时由Caffeine保证只有一个线程查询Redis和执行valueLoader
+ */
+public class LayeredCache implements Cache {
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final CacheNamespaces cacheNamespaces;
+    private final Consumer<String> evictListener;
+
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param remote        Redis缓存
+     * @param local         本地缓存
+     * @param evictListener 清理单个key后调用，参数为本地缓存key
+     */
+    public LayeredCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                        CacheNamespaces cacheNamespaces, Consumer<String> evictListener) {
+        this.remote = remote;
+        this.local = local;
+        this.cacheNamespaces = cacheNamespaces;
+        this.evictListener = evictListener;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(fromStore(value));
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(localKey, toStore(wrapper.get()));
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存数据类型不匹配：" + type.getName() + "，" + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = local.get(localKey(key), k -> {
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null) {
+                remoteHits.increment();
+                return toStore(wrapper.get());
+            }
+            remoteMisses.increment();
+            try {
+                T loaded = valueLoader.call();
+                remote.put(key, loaded);
+                return toStore(loaded);
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        });
+        return (T) fromStore(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), toStore(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.invalidate(localKey(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        remote.evict(key);
+        local.invalidate(localKey);
+        evictions.increment();
+        evictListener.accept(localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        evictions.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        clear();
+        return true;
+    }
+
+    /**
+     * 收到其他节点的清理通知，只清理本地缓存
+     */
+    public void evictLocal(String localKey) {
+        local.invalidate(localKey);
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = local.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("localSize", local.estimatedSize());
+        map.put("localHitCount", stats.hitCount());
+        map.put("localMissCount", stats.missCount());
+        map.put("localEvictionCount", stats.evictionCount());
+        map.put("remoteHitCount", remoteHits.sum());
+        map.put("remoteMissCount", remoteMisses.sum());
+        map.put("evictCount", evictions.sum());
+        return map;
+    }
+
+    private String localKey(Object key) {
+        return "v" + cacheNamespaces.version(getName()) + "::" + key;
+    }
+
+    private static Object toStore(Object value) {
+        return value == null ? NullValue.INSTANCE : value;
+    }
+
+    private static Object fromStore(Object value) {
+        return value == NullValue.INSTANCE ? null : value;
+    }
+}
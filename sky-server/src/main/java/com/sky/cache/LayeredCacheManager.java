@@ -0,0 +1,84 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.SkyCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 两级缓存管理器：每个缓存由本地缓存（L1）和带版本号的Redis缓存（L2）组成，见 LayeredCache
+ * 各缓存的Redis过期时间、本地缓存过期时间和最大条目数按 sky.cache.specs 配置，未配置的使用默认值
+ */
+@Slf4j
+public class LayeredCacheManager extends RedisCacheManager implements MessageListener {
+
+    // 本地缓存清理通知频道，消息内容：缓存名称|本地缓存key
+    public static final String EVICT_CHANNEL = "cache:layered:evict";
+
+    private final CacheNamespaces cacheNamespaces;
+    private final SkyCacheProperties skyCacheProperties;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public LayeredCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultConfiguration,
+                               Map<String, RedisCacheConfiguration> initialCacheConfigurations,
+                               CacheNamespaces cacheNamespaces, SkyCacheProperties skyCacheProperties,
+                               StringRedisTemplate stringRedisTemplate) {
+        super(cacheWriter, defaultConfiguration, initialCacheConfigurations);
+        this.cacheNamespaces = cacheNamespaces;
+        this.skyCacheProperties = skyCacheProperties;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    protected Cache decorateCache(Cache cache) {
+        String name = cache.getName();
+        SkyCacheProperties.Spec spec = skyCacheProperties.getSpecs().getOrDefault(name, new SkyCacheProperties.Spec());
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+        Cache remote = new VersionedCache(super.decorateCache(cache), cacheNamespaces);
+        return new LayeredCache(remote, local, cacheNamespaces,
+                localKey -> stringRedisTemplate.convertAndSend(EVICT_CHANNEL, name + "|" + localKey));
+    }
+
+    /**
+     * 收到其他节点的清理通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] channel) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf('|');
+        if (index > 0) {
+            Cache cache = lookupCache(body.substring(0, index));
+            if (cache instanceof LayeredCache) {
+                ((LayeredCache) cache).evictLocal(body.substring(index + 1));
+            }
+        }
+    }
+
+    /**
+     * 各缓存的统计数据
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> map = new TreeMap<>();
+        for (String name : getCacheNames()) {
+            Cache cache = getCache(name);
+            if (cache instanceof LayeredCache) {
+                map.put(name, ((LayeredCache) cache).stats());
+            }
+        }
+        return map;
+    }
+}
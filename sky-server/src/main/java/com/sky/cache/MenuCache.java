@@ -0,0 +1,240 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sky.properties.SkyCacheProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * C端菜单缓存：本地缓存（L1） + Redis（L2）
+ * key带有命名空间版本号（见 CacheNamespaces），清理整个命名空间时只更新版本号；
+ * 清理单个key时删除Redis中的数据，并通过Redis发布订阅通知所有节点清理本地缓存
+ * 缓存未命中时同一个key只有一个线程查询数据库，其他线程等待其结果；空结果使用较短的过期时间缓存；
+ * 临近过期时按概率提前刷新（越接近过期、加载越慢，提前刷新的概率越大），避免同时过期导致的集中查询
+ */
+@Slf4j
+@Component
+public class MenuCache implements MessageListener {
+
+    // 菜品缓存命名空间
+    public static final String DISH = "dish";
+
+    // 缓存清理通知频道，消息内容为带版本号的key
+    public static final String EVICT_CHANNEL = "cache:menu:evict";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CacheNamespaces cacheNamespaces;
+    private final SkyCacheProperties skyCacheProperties;
+    private final Cache<String, Entry> localCache;
+
+    // 正在加载的key
+    private final Map<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder earlyRefreshCount = new LongAdder();
+    private final LongAdder negativeCount = new LongAdder();
+
+    @Autowired
+    public MenuCache(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate stringRedisTemplate,
+                     CacheNamespaces cacheNamespaces, SkyCacheProperties skyCacheProperties) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cacheNamespaces = cacheNamespaces;
+        this.skyCacheProperties = skyCacheProperties;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(skyCacheProperties.getMenu().getLocalMaxSize())
+                .expireAfterWrite(skyCacheProperties.getMenu().getLocalTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 查询缓存，依次查询本地缓存和Redis，都未命中或需要提前刷新时调用loader加载并写入缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String namespace, Object key, Supplier<T> loader) {
+        String cacheKey = cacheNamespaces.key(namespace, key);
+        Entry entry = read(cacheKey);
+        if (entry == null) {
+            return (T) load(cacheKey, loader, null);
+        }
+        if (shouldRefreshEarly(entry)) {
+            // 已有线程在加载时直接返回旧数据
+            if (!loading.containsKey(cacheKey)) {
+                earlyRefreshCount.increment();
+                return (T) load(cacheKey, loader, entry);
+            }
+        }
+        return (T) entry.getValue();
+    }
+
+    /**
+     * 清理单个key
+     */
+    public void evict(String namespace, Object key) {
+        String cacheKey = cacheNamespaces.key(namespace, key);
+        log.info("清理缓存数据：{}", cacheKey);
+        redisTemplate.delete(cacheKey);
+        localCache.invalidate(cacheKey);
+        stringRedisTemplate.convertAndSend(EVICT_CHANNEL, cacheKey);
+    }
+
+    /**
+     * 清理命名空间下的所有缓存
+     */
+    public void evictAll(String namespace) {
+        cacheNamespaces.bump(namespace);
+    }
+
+    /**
+     * 收到其他节点的缓存清理通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] channel) {
+        localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 本地缓存统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = localCache.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", localCache.estimatedSize());
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        map.put("loadCount", loadCount.sum());
+        map.put("coalescedCount", coalescedCount.sum());
+        map.put("earlyRefreshCount", earlyRefreshCount.sum());
+        map.put("negativeCount", negativeCount.sum());
+        return map;
+    }
+
+    private Entry read(String cacheKey) {
+        long now = System.currentTimeMillis();
+        Entry entry = localCache.getIfPresent(cacheKey);
+        if (entry != null && entry.getExpireAt() > now) {
+            return entry;
+        }
+        Object value = redisTemplate.opsForValue().get(cacheKey);
+        if (value instanceof Entry) {
+            entry = (Entry) value;
+        } else if (value != null) {
+            // 兼容旧格式的缓存数据
+            entry = new Entry(value, now + skyCacheProperties.getMenu().getRedisTtl().toMillis(), 0);
+        } else {
+            return null;
+        }
+        localCache.put(cacheKey, entry);
+        return entry;
+    }
+
+    /**
+     * 加载数据，同一个key同时只有一个线程执行loader
+     *
+     * @param stale 需要提前刷新的旧数据，缓存未命中时为null
+     */
+    private Object load(String cacheKey, Supplier<?> loader, Entry stale) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(cacheKey, future);
+        if (existing != null) {
+            coalescedCount.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            // 未命中后、开始加载前，其他线程可能刚刚加载完成，直接使用其结果
+            Entry latest = localCache.getIfPresent(cacheKey);
+            if (latest != null && latest != stale && latest.getExpireAt() > System.currentTimeMillis()) {
+                coalescedCount.increment();
+                future.complete(latest.getValue());
+                return latest.getValue();
+            }
+
+            long start = System.currentTimeMillis();
+            Object value = loader.get();
+            loadCount.increment();
+            write(cacheKey, value, System.currentTimeMillis() - start);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(cacheKey, future);
+        }
+    }
+
+    private void write(String cacheKey, Object value, long loadMillis) {
+        boolean negative = value == null || (value instanceof Collection && ((Collection<?>) value).isEmpty());
+        Duration ttl = negative ? skyCacheProperties.getMenu().getNegativeTtl() : skyCacheProperties.getMenu().getRedisTtl();
+        if (negative) {
+            negativeCount.increment();
+        }
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttl.toMillis(), loadMillis);
+        redisTemplate.opsForValue().set(cacheKey, entry, ttl);
+        localCache.put(cacheKey, entry);
+    }
+
+    /**
+     * 概率提前刷新（XFetch）：now - 加载耗时 * beta * ln(random) >= 过期时间 时刷新
+     */
+    private boolean shouldRefreshEarly(Entry entry) {
+        double beta = skyCacheProperties.getMenu().getEarlyRefreshBeta();
+        if (beta <= 0 || entry.getLoadMillis() <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - entry.getLoadMillis() * beta * Math.log(random) >= entry.getExpireAt();
+    }
+
+    /**
+     * 缓存数据及其过期时间、加载耗时
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Object value;
+
+        private long expireAt;
+
+        private long loadMillis;
+    }
+}
@@ -0,0 +1,71 @@
+package com.sky.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 带命名空间版本号的Spring缓存，清理全部缓存时只更新版本号（见 CacheNamespaces）
+ * 缓存key的前缀由 CacheConfiguration 按当前版本号计算
+ */
+public class VersionedCache implements Cache {
+
+    private final Cache delegate;
+    private final CacheNamespaces cacheNamespaces;
+
+    public VersionedCache(Cache delegate, CacheNamespaces cacheNamespaces) {
+        this.delegate = delegate;
+        this.cacheNamespaces = cacheNamespaces;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        cacheNamespaces.bump(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        cacheNamespaces.bump(getName());
+        return true;
+    }
+}
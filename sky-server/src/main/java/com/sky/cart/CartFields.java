@@ -0,0 +1,22 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+
+/**
+ * 购物车商品的唯一标识，构造规则：d:菜品id:口味、s:套餐id
+ */
+final class CartFields {
+
+    private CartFields() {
+    }
+
+    static String field(ShoppingCart item) {
+        if (item.getDishId() != null) {
+            return "d:" + item.getDishId() + ":" + (item.getDishFlavor() == null ? "" : item.getDishFlavor());
+        }
+        if (item.getSetmealId() != null) {
+            return "s:" + item.getSetmealId();
+        }
+        throw new IllegalArgumentException("购物车项必须为菜品或套餐");
+    }
+}
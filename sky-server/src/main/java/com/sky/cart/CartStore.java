@@ -0,0 +1,42 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * 购物车存储，通过 sky.cart.store 配置选择实现：mysql（默认）、redis、memory
+ * 购物车商品以 用户id + 菜品id/套餐id + 口味 唯一确定
+ */
+public interface CartStore {
+
+    /**
+     * 查询用户的购物车
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 商品已在购物车中时数量加1，返回加1后的数量；不在购物车中时返回0
+     */
+    int increment(ShoppingCart item);
+
+    /**
+     * 新增购物车商品，数量取 item.number
+     */
+    void insert(ShoppingCart item);
+
+    /**
+     * 商品数量减1，减到0时移除，返回剩余数量；不在购物车中时返回-1
+     */
+    int decrement(ShoppingCart item);
+
+    /**
+     * 批量添加购物车商品
+     */
+    void insertBatch(List<ShoppingCart> items);
+
+    /**
+     * 清空用户的购物车，在事务中调用时随事务提交生效
+     */
+    void clear(Long userId);
+}
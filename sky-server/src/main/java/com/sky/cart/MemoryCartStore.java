@@ -0,0 +1,76 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 购物车存储：进程内存，用于本地开发和测试，不做持久化
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.cart", name = "store", havingValue = "memory")
+public class MemoryCartStore implements CartStore {
+
+    private final Map<Long, Map<String, ShoppingCart>> carts = new ConcurrentHashMap<>();
+
+    public List<ShoppingCart> list(Long userId) {
+        Map<String, ShoppingCart> cart = carts.get(userId);
+        List<ShoppingCart> list = new ArrayList<>();
+        if (cart != null) {
+            cart.values().forEach(item -> list.add(copy(item)));
+        }
+        return list;
+    }
+
+    public int increment(ShoppingCart item) {
+        ShoppingCart cart = cartOf(item.getUserId())
+                .computeIfPresent(CartFields.field(item), (field, old) -> withNumber(old, old.getNumber() + 1));
+        return cart == null ? 0 : cart.getNumber();
+    }
+
+    public void insert(ShoppingCart item) {
+        cartOf(item.getUserId()).merge(CartFields.field(item), copy(item),
+                (old, added) -> withNumber(old, old.getNumber() + added.getNumber()));
+    }
+
+    public int decrement(ShoppingCart item) {
+        Map<String, ShoppingCart> cart = cartOf(item.getUserId());
+        String field = CartFields.field(item);
+        if (!cart.containsKey(field)) {
+            return -1;
+        }
+        ShoppingCart left = cart.computeIfPresent(field,
+                (key, old) -> old.getNumber() <= 1 ? null : withNumber(old, old.getNumber() - 1));
+        return left == null ? 0 : left.getNumber();
+    }
+
+    public void insertBatch(List<ShoppingCart> items) {
+        items.forEach(this::insert);
+    }
+
+    public void clear(Long userId) {
+        carts.remove(userId);
+    }
+
+    private Map<String, ShoppingCart> cartOf(Long userId) {
+        return carts.computeIfAbsent(userId, id -> new ConcurrentHashMap<>());
+    }
+
+    private ShoppingCart withNumber(ShoppingCart item, int number) {
+        ShoppingCart cart = copy(item);
+        cart.setNumber(number);
+        return cart;
+    }
+
+    private ShoppingCart copy(ShoppingCart item) {
+        ShoppingCart cart = new ShoppingCart();
+        BeanUtils.copyProperties(item, cart);
+        return cart;
+    }
+}
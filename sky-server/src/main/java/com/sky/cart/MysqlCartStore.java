@@ -0,0 +1,66 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 购物车存储：MySQL
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.cart", name = "store", havingValue = "mysql", matchIfMissing = true)
+public class MysqlCartStore implements CartStore {
+
+    private final ShoppingCartMapper shoppingCartMapper;
+
+    @Autowired
+    public MysqlCartStore(ShoppingCartMapper shoppingCartMapper) {
+        this.shoppingCartMapper = shoppingCartMapper;
+    }
+
+    public List<ShoppingCart> list(Long userId) {
+        return shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+    }
+
+    public int increment(ShoppingCart item) {
+        List<ShoppingCart> list = shoppingCartMapper.list(item);
+        if (list == null || list.isEmpty()) {
+            return 0;
+        }
+        ShoppingCart cart = list.get(0);
+        cart.setNumber(cart.getNumber() + 1);
+        shoppingCartMapper.updateNumberById(cart);
+        return cart.getNumber();
+    }
+
+    public void insert(ShoppingCart item) {
+        shoppingCartMapper.insert(item);
+    }
+
+    public int decrement(ShoppingCart item) {
+        List<ShoppingCart> list = shoppingCartMapper.list(item);
+        if (list == null || list.isEmpty()) {
+            return -1;
+        }
+        ShoppingCart cart = list.get(0);
+        if (cart.getNumber() <= 1) {
+            shoppingCartMapper.deleteById(cart.getId());
+            return 0;
+        }
+        cart.setNumber(cart.getNumber() - 1);
+        shoppingCartMapper.updateNumberById(cart);
+        return cart.getNumber();
+    }
+
+    public void insertBatch(List<ShoppingCart> items) {
+        shoppingCartMapper.insertBatch(items);
+    }
+
+    public void clear(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+}
@@ -0,0 +1,235 @@
+package com.sky.cart;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.properties.CartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车存储：Redis
+ * 每个用户两个hash：cart:{userId} 保存商品数量，cart:{userId}:item 保存商品信息，field为商品唯一标识
+ * 数量通过Lua脚本原子增减，变更的用户记入 cart:dirty，由 CartWriteBehindTask 定时回写MySQL
+ * hash不存在时先从MySQL加载，hash中固定保留一个 "_" 字段，表示已加载（空购物车也不会重复加载）
+ * 回写与清空在各自的事务中先锁定用户行，互相串行；清空时先写入 cart:{userId}:clearing 标记，
+ * 事务提交后与购物车一起删除，回写看到该标记时跳过，避免把已下单清空的购物车重新写回MySQL
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "sky.cart", name = "store", havingValue = "redis")
+public class RedisCartStore implements CartStore {
+
+    public static final String DIRTY_KEY = "cart:dirty";
+
+    private static final String LOADED_FIELD = "_";
+
+    // 清空标记的过期时间，进程在清空事务结束前退出时标记自动失效
+    private static final Duration CLEARING_TTL = Duration.ofMinutes(1);
+
+    // 返回值：-2 购物车未加载，-1 商品不在购物车中，其余为变更后的数量
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return -2 end " +
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return -1 end " +
+            "local n = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if n <= 0 then redis.call('hdel', KEYS[1], ARGV[1]) redis.call('hdel', KEYS[2], ARGV[1]) n = 0 end " +
+            "redis.call('expire', KEYS[1], ARGV[3]) redis.call('expire', KEYS[2], ARGV[3]) " +
+            "redis.call('sadd', KEYS[3], ARGV[4]) " +
+            "return n",
+            Long.class);
+
+    // 返回值：-2 购物车未加载，其余为新增后的数量
+    private static final RedisScript<Long> INSERT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return -2 end " +
+            "redis.call('hsetnx', KEYS[2], ARGV[1], ARGV[2]) " +
+            "local n = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[3]) " +
+            "redis.call('expire', KEYS[1], ARGV[4]) redis.call('expire', KEYS[2], ARGV[4]) " +
+            "redis.call('sadd', KEYS[3], ARGV[5]) " +
+            "return n",
+            Long.class);
+
+    // 购物车不存在时写入从MySQL加载的数据，ARGV：过期秒数, 后续每3个一组（field, 数量, 商品信息）
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('hset', KEYS[1], '" + LOADED_FIELD + "', 0) " +
+            "for i = 2, #ARGV, 3 do " +
+            "redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) redis.call('hset', KEYS[2], ARGV[i], ARGV[i + 2]) " +
+            "end " +
+            "redis.call('expire', KEYS[1], ARGV[1]) redis.call('expire', KEYS[2], ARGV[1]) " +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ShoppingCartMapper shoppingCartMapper;
+    private final UserMapper userMapper;
+    private final CartProperties cartProperties;
+
+    @Autowired
+    public RedisCartStore(StringRedisTemplate stringRedisTemplate, ShoppingCartMapper shoppingCartMapper, UserMapper userMapper, CartProperties cartProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.shoppingCartMapper = shoppingCartMapper;
+        this.userMapper = userMapper;
+        this.cartProperties = cartProperties;
+    }
+
+    public List<ShoppingCart> list(Long userId) {
+        Map<Object, Object> numbers = stringRedisTemplate.opsForHash().entries(countKey(userId));
+        if (numbers.isEmpty()) {
+            load(userId);
+            numbers = stringRedisTemplate.opsForHash().entries(countKey(userId));
+        }
+        Map<Object, Object> items = stringRedisTemplate.opsForHash().entries(itemKey(userId));
+
+        List<ShoppingCart> list = new ArrayList<>();
+        numbers.forEach((field, number) -> {
+            Object json = items.get(field);
+            if (LOADED_FIELD.equals(field) || json == null) {
+                return;
+            }
+            ShoppingCart cart = JSON.parseObject((String) json, ShoppingCart.class);
+            cart.setUserId(userId);
+            cart.setNumber(Integer.parseInt((String) number));
+            list.add(cart);
+        });
+        return list;
+    }
+
+    public int increment(ShoppingCart item) {
+        long n = changeNumber(item, 1);
+        return n < 0 ? 0 : (int) n;
+    }
+
+    public void insert(ShoppingCart item) {
+        Long userId = item.getUserId();
+        String field = CartFields.field(item);
+        ShoppingCart meta = new ShoppingCart();
+        meta.setName(item.getName());
+        meta.setImage(item.getImage());
+        meta.setAmount(item.getAmount());
+        meta.setDishId(item.getDishId());
+        meta.setSetmealId(item.getSetmealId());
+        meta.setDishFlavor(item.getDishFlavor());
+        meta.setCreateTime(item.getCreateTime());
+
+        List<String> keys = Arrays.asList(countKey(userId), itemKey(userId), DIRTY_KEY);
+        Object[] args = {field, JSON.toJSONString(meta), String.valueOf(item.getNumber()), ttlSeconds(), String.valueOf(userId)};
+        Long n = stringRedisTemplate.execute(INSERT_SCRIPT, keys, args);
+        if (n != null && n == -2) {
+            load(userId);
+            stringRedisTemplate.execute(INSERT_SCRIPT, keys, args);
+        }
+    }
+
+    public int decrement(ShoppingCart item) {
+        return (int) changeNumber(item, -1);
+    }
+
+    public void insertBatch(List<ShoppingCart> items) {
+        items.forEach(this::insert);
+    }
+
+    public void clear(Long userId) {
+        // 先写入清空标记再锁定用户行，标记在事务结束前一直存在
+        stringRedisTemplate.opsForValue().set(clearingKey(userId), "1", CLEARING_TTL);
+        // MySQL中的购物车随当前事务删除，Redis中的购物车在事务提交后清空，事务回滚时只删除标记
+        userMapper.lockById(userId);
+        shoppingCartMapper.deleteByUserId(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        clearRedis(userId);
+                    } else {
+                        stringRedisTemplate.delete(clearingKey(userId));
+                    }
+                }
+            });
+        } else {
+            clearRedis(userId);
+        }
+    }
+
+    /**
+     * 将用户的购物车回写MySQL，需在事务中调用
+     * 购物车正在清空时跳过并返回false，由调用方稍后重试
+     */
+    public boolean flush(Long userId) {
+        // 与清空互斥：清空事务已提交时，锁定后看到的要么是清空标记，要么是已删除的购物车
+        userMapper.lockById(userId);
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(clearingKey(userId)))) {
+            return false;
+        }
+        List<ShoppingCart> list = list(userId);
+        shoppingCartMapper.deleteByUserId(userId);
+        if (!list.isEmpty()) {
+            shoppingCartMapper.insertBatch(list);
+        }
+        return true;
+    }
+
+    private long changeNumber(ShoppingCart item, int delta) {
+        Long userId = item.getUserId();
+        List<String> keys = Arrays.asList(countKey(userId), itemKey(userId), DIRTY_KEY);
+        Object[] args = {CartFields.field(item), String.valueOf(delta), ttlSeconds(), String.valueOf(userId)};
+        Long n = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, args);
+        if (n != null && n == -2) {
+            load(userId);
+            n = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, args);
+        }
+        return n == null ? -1 : n;
+    }
+
+    /**
+     * 从MySQL加载购物车
+     */
+    private void load(Long userId) {
+        List<ShoppingCart> list = shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+        List<String> args = new ArrayList<>();
+        args.add(ttlSeconds());
+        for (ShoppingCart cart : list) {
+            args.add(CartFields.field(cart));
+            args.add(String.valueOf(cart.getNumber()));
+            cart.setId(null);
+            args.add(JSON.toJSONString(cart));
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, Arrays.asList(countKey(userId), itemKey(userId)), args.toArray());
+        log.debug("从MySQL加载购物车，用户id: {}，商品数: {}", userId, list.size());
+    }
+
+    private void clearRedis(Long userId) {
+        // 购物车与清空标记一起删除
+        stringRedisTemplate.delete(Arrays.asList(countKey(userId), itemKey(userId), clearingKey(userId)));
+        stringRedisTemplate.opsForSet().remove(DIRTY_KEY, String.valueOf(userId));
+    }
+
+    private String ttlSeconds() {
+        return String.valueOf(cartProperties.getTtl().toSeconds());
+    }
+
+    private static String countKey(Long userId) {
+        return "cart:" + userId;
+    }
+
+    private static String itemKey(Long userId) {
+        return "cart:" + userId + ":item";
+    }
+
+    private static String clearingKey(Long userId) {
+        return "cart:" + userId + ":clearing";
+    }
+}
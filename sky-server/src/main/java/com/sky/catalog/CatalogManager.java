@@ -0,0 +1,295 @@
+package com.sky.catalog;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.SkyCacheProperties;
+import com.sky.vo.CatalogSyncVO;
+import com.sky.vo.DishItemVO;
+import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * C端菜单快照管理
+ * 启动时加载快照，管理端修改分类、菜品、套餐后重新构建并替换；版本号保存在Redis中，
+ * 重建后通过Redis发布订阅通知其他节点按同一版本号重建，并定期比对版本号，防止丢失通知
+ * 同一版本号的数据在Redis中只保存一份（catalog:snapshot:{版本号}），第一个构建该版本的节点从数据库加载后写入，
+ * 其他节点直接读取，各节点同一版本的快照内容相同；Redis不可用时从数据库加载，该快照不作为增量同步的基准
+ * 保留最近的若干个历史快照，客户端携带版本号同步时与对应的历史快照比较，只返回变更的数据
+ */
+@Slf4j
+@Component
+public class CatalogManager implements MessageListener {
+
+    // 快照重建通知频道，消息内容为版本号
+    public static final String REBUILD_CHANNEL = "catalog:rebuild";
+
+    private static final String VERSION_KEY = "catalog:ver";
+
+    private static final String SNAPSHOT_KEY_PREFIX = "catalog:snapshot:";
+
+    private final CategoryMapper categoryMapper;
+    private final DishMapper dishMapper;
+    private final DishFlavorMapper dishFlavorMapper;
+    private final SetmealMapper setmealMapper;
+    private final SetmealDishMapper setmealDishMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SkyCacheProperties skyCacheProperties;
+
+    // 快照数据在Redis中的格式，保留日期时间的秒数，与从数据库加载的数据一致
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private volatile CatalogSnapshot snapshot;
+    // 历史快照，按版本号从旧到新排列，读写时需要加锁
+    private final Deque<CatalogSnapshot> history = new ArrayDeque<>();
+
+    @Autowired
+    public CatalogManager(CategoryMapper categoryMapper, DishMapper dishMapper, DishFlavorMapper dishFlavorMapper,
+                          SetmealMapper setmealMapper, SetmealDishMapper setmealDishMapper,
+                          StringRedisTemplate stringRedisTemplate, SkyCacheProperties skyCacheProperties) {
+        this.categoryMapper = categoryMapper;
+        this.dishMapper = dishMapper;
+        this.dishFlavorMapper = dishFlavorMapper;
+        this.setmealMapper = setmealMapper;
+        this.setmealDishMapper = setmealDishMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.skyCacheProperties = skyCacheProperties;
+    }
+
+    /**
+     * 当前快照，启动加载失败时为null，调用方需回退到查询数据库
+     */
+    public CatalogSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * 当前快照版本号，没有快照时为-1
+     */
+    public long version() {
+        CatalogSnapshot current = snapshot;
+        return current == null ? -1 : current.getVersion();
+    }
+
+    /**
+     * 查询指定版本的历史快照，不存在时返回null
+     */
+    public CatalogSnapshot history(long version) {
+        synchronized (history) {
+            for (CatalogSnapshot item : history) {
+                if (item.getVersion() == version) {
+                    return item;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 菜单数据已变更：在事务提交后生成新版本号、重建快照并通知其他节点
+     */
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRefresh();
+                }
+            });
+        } else {
+            doRefresh();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            rebuild(remoteVersion(), true);
+        } catch (Exception e) {
+            log.error("菜单快照加载失败，C端菜单将直接查询数据库", e);
+        }
+    }
+
+    /**
+     * 定期比对Redis中的版本号，防止丢失重建通知
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void sync() {
+        try {
+            long version = remoteVersion();
+            if (version > version()) {
+                rebuild(version, true);
+            }
+        } catch (Exception e) {
+            log.warn("菜单快照版本同步失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其他节点的重建通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] channel) {
+        long version = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (version > version()) {
+            rebuild(version, true);
+        }
+    }
+
+    private void doRefresh() {
+        long version;
+        boolean shared;
+        try {
+            Long next = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+            shared = next != null;
+            version = next == null ? version() + 1 : next;
+        } catch (Exception e) {
+            // Redis不可用时只更新本节点，本地生成的版本号可能与其他节点重复，不使用共用数据
+            log.warn("菜单快照版本号生成失败，仅重建本节点快照：{}", e.getMessage());
+            shared = false;
+            version = version() + 1;
+        }
+        rebuild(version, shared);
+        try {
+            stringRedisTemplate.convertAndSend(REBUILD_CHANNEL, String.valueOf(version));
+        } catch (Exception e) {
+            log.warn("菜单快照重建通知发送失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 加载并替换快照，版本号不大于当前快照时跳过
+     *
+     * @param shared 是否使用Redis中该版本的共用数据
+     */
+    private synchronized void rebuild(long version, boolean shared) {
+        if (version <= version() && snapshot != null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        CatalogSnapshot previous = snapshot;
+        snapshot = shared ? loadShared(version) : load(version);
+        if (previous != null) {
+            synchronized (history) {
+                history.addLast(previous);
+                while (history.size() > skyCacheProperties.getCatalog().getHistorySize()) {
+                    history.removeFirst();
+                }
+            }
+        }
+        log.info("菜单快照重建完成：{}，耗时{}ms", snapshot.summary(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 读取Redis中该版本的共用数据，不存在时从数据库加载并写入；
+     * 多个节点同时写入时只有第一个成功，其余节点改用已写入的数据
+     */
+    private CatalogSnapshot loadShared(long version) {
+        String key = SNAPSHOT_KEY_PREFIX + version;
+        try {
+            String json = stringRedisTemplate.opsForValue().get(key);
+            if (json == null) {
+                String loaded = objectMapper.writeValueAsString(load(version).toSyncVO());
+                Boolean stored = stringRedisTemplate.opsForValue().setIfAbsent(key, loaded,
+                        skyCacheProperties.getCatalog().getSnapshotTtl());
+                json = Boolean.TRUE.equals(stored) ? loaded : stringRedisTemplate.opsForValue().get(key);
+                if (json == null) {
+                    throw new IllegalStateException("共用快照数据已过期");
+                }
+            }
+            CatalogSyncVO data = objectMapper.readValue(json, CatalogSyncVO.class);
+            return new CatalogSnapshot(version, true, data.getCategories(), data.getDishes(), data.getSetmeals(),
+                    data.getSetmealDishes());
+        } catch (Exception e) {
+            log.warn("菜单快照共用数据读写失败，仅使用本节点数据：version={}, {}", version, e.getMessage());
+            return load(version);
+        }
+    }
+
+    /**
+     * 从数据库加载，只用于本节点
+     */
+    private CatalogSnapshot load(long version) {
+        List<Category> categories = categoryMapper.list(null);
+
+        // 起售的菜品及口味
+        List<Dish> dishList = dishMapper.list(Dish.builder().status(StatusConstant.ENABLE).build());
+        List<DishVO> dishes = new ArrayList<>(dishList.size());
+        Map<Long, DishVO> dishVOMap = new HashMap<>(dishList.size() * 2);
+        for (Dish dish : dishList) {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(dish, dishVO);
+            dishes.add(dishVO);
+            dishVOMap.put(dish.getId(), dishVO);
+        }
+        if (!dishVOMap.isEmpty()) {
+            for (DishFlavor flavor : dishFlavorMapper.getByDishIds(new ArrayList<>(dishVOMap.keySet()))) {
+                DishVO dishVO = dishVOMap.get(flavor.getDishId());
+                if (dishVO != null) {
+                    dishVO.getFlavors().add(flavor);
+                }
+            }
+        }
+
+        // 起售的套餐及包含的菜品，菜品图片和描述取自菜品表（包括已停售的菜品）
+        List<Setmeal> setmeals = setmealMapper.list(Setmeal.builder().status(StatusConstant.ENABLE).build());
+        Map<Long, List<DishItemVO>> dishItems = new HashMap<>(setmeals.size() * 2);
+        if (!setmeals.isEmpty()) {
+            List<SetmealDish> setmealDishes = setmealDishMapper.getBySetmealIds(
+                    setmeals.stream().map(Setmeal::getId).collect(Collectors.toList()));
+            List<Long> dishIds = setmealDishes.stream().map(SetmealDish::getDishId).distinct().collect(Collectors.toList());
+            Map<Long, Dish> dishMap = dishIds.isEmpty() ? new HashMap<>()
+                    : dishMapper.getByIds(dishIds).stream().collect(Collectors.toMap(Dish::getId, d -> d));
+            setmeals.forEach(setmeal -> dishItems.put(setmeal.getId(), new ArrayList<>()));
+            for (SetmealDish setmealDish : setmealDishes) {
+                Dish dish = dishMap.get(setmealDish.getDishId());
+                dishItems.get(setmealDish.getSetmealId()).add(DishItemVO.builder()
+                        .name(setmealDish.getName())
+                        .copies(setmealDish.getCopies())
+                        .image(dish == null ? null : dish.getImage())
+                        .description(dish == null ? null : dish.getDescription())
+                        .build());
+            }
+        }
+
+        return new CatalogSnapshot(version, false, categories, dishes, setmeals, dishItems);
+    }
+
+    private long remoteVersion() {
+        String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        return version == null ? 0L : Long.parseLong(version);
+    }
+}
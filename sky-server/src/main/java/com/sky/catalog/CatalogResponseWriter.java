@@ -0,0 +1,167 @@
+package com.sky.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.config.WebMvcConfiguration;
+import com.sky.result.Result;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 直接输出菜单快照中预先序列化的响应数据
+ * ETag由快照版本号和数据key组成（本节点单独构建的快照由内容的校验和组成），gzip压缩的内容使用带 -gz 后缀的ETag，
+ * 请求头If-None-Match包含其中任一个时返回304；
+ * 客户端支持gzip时输出预先压缩的内容，无需每次请求都经过Jackson序列化
+ */
+@Slf4j
+@Component
+public class CatalogResponseWriter {
+
+    private final ObjectMapper objectMapper = WebMvcConfiguration.createObjectMapper();
+
+    /**
+     * 输出响应数据
+     *
+     * @param key  数据key，如 dish:分类id
+     * @param data 响应数据，首次输出时才会调用，返回值按 Result.success(data) 序列化
+     */
+    public void write(CatalogSnapshot snapshot, String key, Supplier<Object> data,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        EncodedPayload payload = snapshot.payload(key, k -> encode(snapshot, k, Result.success(data.get())));
+        write(payload, request, response);
+    }
+
+    /**
+     * 输出不在菜单快照中的响应数据（快照不可用时的查询结果、错误信息），每次都重新序列化，ETag使用内容的校验和
+     *
+     * @param key 数据key，如 dish:分类id
+     */
+    public void write(String key, Result<?> result, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(encode(null, key, result), request, response);
+    }
+
+    private void write(EncodedPayload payload, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        response.setHeader(HttpHeaders.ETAG, gzip ? payload.getGzipEtag() : payload.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (matches(ifNoneMatch, payload.getEtag()) || matches(ifNoneMatch, payload.getGzipEtag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = payload.getJson();
+        if (gzip) {
+            body = payload.getGzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+    }
+
+    private EncodedPayload encode(CatalogSnapshot snapshot, String key, Result<?> result) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(result);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(json);
+            }
+            String etag = etag(snapshot, key, json);
+            return new EncodedPayload(json, out.toByteArray(), etag, etag.substring(0, etag.length() - 1) + "-gz\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("菜单数据序列化失败：" + key, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 共用快照的同一版本在各节点内容相同，ETag使用版本号；本节点单独构建的快照版本号可能与其他节点重复，
+     * 不在快照中的数据没有版本号，都使用内容的校验和
+     */
+    private static String etag(CatalogSnapshot snapshot, String key, byte[] json) {
+        if (snapshot != null && snapshot.isShared()) {
+            return "\"" + snapshot.getVersion() + "-" + key + "\"";
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        return "\"local-" + Long.toHexString(crc.getValue()) + "-" + key + "\"";
+    }
+
+    /**
+     * 判断Accept-Encoding是否接受gzip：gzip（或x-gzip）的q值大于0，或未列出gzip时*的q值大于0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.startsWith("q=") || param.startsWith("Q="))) {
+                    q = quality(param.substring(2).trim());
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    /**
+     * q值格式错误时按0处理，输出未压缩的内容
+     */
+    private static double quality(String value) {
+        try {
+            double q = Double.parseDouble(value);
+            return q >= 0 && q <= 1 ? q : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 判断If-None-Match是否包含当前ETag（可能是逗号分隔的多个值或*），按弱比较忽略 W/ 前缀
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,203 @@
+package com.sky.catalog;
+
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import com.sky.vo.CatalogSyncVO;
+import com.sky.vo.DishItemVO;
+import com.sky.vo.DishVO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * C端菜单快照：起售的分类、菜品（含口味）、套餐及套餐包含的菜品
+ * 构造时按分类类型、分类id、套餐id建立索引，构造完成后不再修改，可被多个线程同时读取；
+ * 数据变更时整体重建新的快照并替换引用（写时复制），返回的对象只用于读取，调用方不能修改
+ * 序列化后的响应数据按需生成并随快照保存，快照替换后自然失效；按分类保存的数据只保存快照中存在的分类，
+ * 不存在的分类共用一份空数据，避免客户端传入任意分类id使缓存无限增长
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final boolean shared;
+    private final LocalDateTime builtAt;
+
+    private final List<Category> categories;
+    private final Map<Integer, List<Category>> categoriesByType;
+    private final Set<Long> categoryIds;
+    private final List<DishVO> dishes;
+    private final Map<Long, List<DishVO>> dishesByCategory;
+    private final List<Setmeal> setmeals;
+    private final Map<Long, List<Setmeal>> setmealsByCategory;
+    private final Map<Long, List<DishItemVO>> dishItemsBySetmeal;
+    private final Map<String, EncodedPayload> payloads = new ConcurrentHashMap<>();
+
+    /**
+     * @param shared             是否为各节点共用的该版本数据，只有共用的快照才能作为增量同步的基准
+     * @param categories         起售的分类，已按展示顺序排序
+     * @param dishes             起售的菜品，已按展示顺序排序
+     * @param setmeals           起售的套餐
+     * @param dishItemsBySetmeal 套餐id -> 套餐包含的菜品
+     */
+    public CatalogSnapshot(long version, boolean shared, List<Category> categories, List<DishVO> dishes, List<Setmeal> setmeals,
+                           Map<Long, List<DishItemVO>> dishItemsBySetmeal) {
+        this.version = version;
+        this.shared = shared;
+        this.builtAt = LocalDateTime.now();
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+        this.categoriesByType = groupBy(categories, Category::getType);
+        Set<Long> ids = new HashSet<>(categories.size() * 2);
+        categories.forEach(category -> ids.add(category.getId()));
+        this.categoryIds = Collections.unmodifiableSet(ids);
+        this.dishes = Collections.unmodifiableList(new ArrayList<>(dishes));
+        this.dishesByCategory = groupBy(dishes, DishVO::getCategoryId);
+        this.setmeals = Collections.unmodifiableList(new ArrayList<>(setmeals));
+        this.setmealsByCategory = groupBy(setmeals, Setmeal::getCategoryId);
+
+        Map<Long, List<DishItemVO>> items = new HashMap<>(dishItemsBySetmeal.size() * 2);
+        dishItemsBySetmeal.forEach((setmealId, list) -> items.put(setmealId, Collections.unmodifiableList(new ArrayList<>(list))));
+        this.dishItemsBySetmeal = Collections.unmodifiableMap(items);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 根据类型查询分类，类型为空时返回全部分类
+     */
+    public List<Category> categories(Integer type) {
+        return type == null ? categories : categoriesByType.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * 根据分类id查询菜品，分类id为空时返回全部菜品
+     */
+    public List<DishVO> dishes(Long categoryId) {
+        return categoryId == null ? dishes : dishesByCategory.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    /**
+     * 根据分类id查询套餐，分类id为空时返回全部套餐
+     */
+    public List<Setmeal> setmeals(Long categoryId) {
+        return categoryId == null ? setmeals : setmealsByCategory.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    /**
+     * 根据套餐id查询包含的菜品，套餐不在快照中（如已停售）时返回null
+     */
+    public List<DishItemVO> dishItems(Long setmealId) {
+        return dishItemsBySetmeal.get(setmealId);
+    }
+
+    /**
+     * 按分类保存的响应数据的key：分类id为空（全部分类）或在快照中存在时为 前缀:分类id，否则共用 前缀:none
+     */
+    public String categoryKey(String prefix, Long categoryId) {
+        if (categoryId == null || categoryIds.contains(categoryId)) {
+            return prefix + ":" + categoryId;
+        }
+        return prefix + ":none";
+    }
+
+    /**
+     * 获取序列化后的响应数据，不存在时使用encoder生成
+     * key的取值范围需要有限（按分类保存时通过 categoryKey 生成）
+     */
+    public EncodedPayload payload(String key, Function<String, EncodedPayload> encoder) {
+        return payloads.computeIfAbsent(key, encoder);
+    }
+
+    /**
+     * 全量同步数据
+     */
+    public CatalogSyncVO toSyncVO() {
+        return CatalogSyncVO.builder()
+                .version(version)
+                .full(true)
+                .categories(categories)
+                .dishes(dishes)
+                .setmeals(setmeals)
+                .setmealDishes(dishItemsBySetmeal)
+                .build();
+    }
+
+    /**
+     * 与旧快照比较，返回新增、修改及删除（停售）的数据
+     */
+    public CatalogSyncVO changesSince(CatalogSnapshot previous) {
+        CatalogSyncVO syncVO = CatalogSyncVO.builder().version(version).full(false).build();
+        diff(previous.categories, categories, Category::getId, syncVO.getCategories(), syncVO.getRemovedCategoryIds());
+        diff(previous.dishes, dishes, DishVO::getId, syncVO.getDishes(), syncVO.getRemovedDishIds());
+        diff(previous.setmeals, setmeals, Setmeal::getId, syncVO.getSetmeals(), syncVO.getRemovedSetmealIds());
+
+        // 套餐包含的菜品变更时，套餐本身也作为修改的数据返回
+        dishItemsBySetmeal.forEach((setmealId, items) -> {
+            if (!Objects.equals(previous.dishItemsBySetmeal.get(setmealId), items)) {
+                syncVO.getSetmealDishes().put(setmealId, items);
+                if (syncVO.getSetmeals().stream().noneMatch(s -> setmealId.equals(s.getId()))) {
+                    setmeals.stream().filter(s -> setmealId.equals(s.getId())).findFirst().ifPresent(syncVO.getSetmeals()::add);
+                }
+            }
+        });
+        return syncVO;
+    }
+
+    /**
+     * 快照概况
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("version", version);
+        map.put("shared", shared);
+        map.put("builtAt", builtAt);
+        map.put("categories", categories.size());
+        map.put("dishes", dishes.size());
+        map.put("setmeals", setmeals.size());
+        return map;
+    }
+
+    private static <T> void diff(List<T> oldList, List<T> newList, Function<T, Long> idFunction,
+                                 List<T> changed, List<Long> removed) {
+        Map<Long, T> oldMap = new HashMap<>(oldList.size() * 2);
+        oldList.forEach(item -> oldMap.put(idFunction.apply(item), item));
+        for (T item : newList) {
+            T old = oldMap.remove(idFunction.apply(item));
+            if (!item.equals(old)) {
+                changed.add(item);
+            }
+        }
+        removed.addAll(oldMap.keySet());
+    }
+
+    private static <K, T> Map<K, List<T>> groupBy(List<T> list, Function<T, K> keyFunction) {
+        Map<K, List<T>> map = new HashMap<>();
+        for (T item : list) {
+            K key = keyFunction.apply(item);
+            if (key != null) {
+                map.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+            }
+        }
+        map.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,20 @@
+package com.sky.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 预先序列化的响应数据：JSON原文、gzip压缩后的内容及各自的ETag
+ */
+@Getter
+@AllArgsConstructor
+public final class EncodedPayload {
+
+    private final byte[] json;
+
+    private final byte[] gzip;
+
+    private final String etag;
+
+    private final String gzipEtag;
+}
@@ -0,0 +1,47 @@
+package com.sky.config;
+
+import com.sky.cache.CacheNamespaces;
+import com.sky.cache.CompactRedisSerializer;
+import com.sky.cache.LayeredCacheManager;
+import com.sky.properties.SkyCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spring Cache 配置类
+ * 本地缓存 + Redis两级缓存，各缓存的过期时间、最大条目数见 sky.cache.specs
+ * 缓存key构造规则：缓存名称:v版本号::key，@CacheEvict(allEntries = true) 只更新版本号，不再使用KEYS扫描删除
+ */
+@Slf4j
+@Configuration
+public class CacheConfiguration {
+
+    @Bean
+    public LayeredCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, CacheNamespaces cacheNamespaces,
+                                            CompactRedisSerializer compactRedisSerializer, SkyCacheProperties skyCacheProperties,
+                                            StringRedisTemplate stringRedisTemplate) {
+        log.info("开始创建缓存管理器...");
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(skyCacheProperties.getDefaultTtl())
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(compactRedisSerializer))
+                // 每次访问时按当前版本号计算前缀
+                .computePrefixWith(cacheName -> cacheName + ":v" + cacheNamespaces.version(cacheName) + "::");
+
+        // 按缓存名称配置过期时间
+        Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        skyCacheProperties.getSpecs().forEach((name, spec) ->
+                cacheConfigurations.put(name, spec.getTtl() == null ? config : config.entryTtl(spec.getTtl())));
+
+        return new LayeredCacheManager(RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory), config,
+                cacheConfigurations, cacheNamespaces, skyCacheProperties, stringRedisTemplate);
+    }
+}
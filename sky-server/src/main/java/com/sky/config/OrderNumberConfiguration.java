@@ -0,0 +1,134 @@
+package com.sky.config;
+
+import com.sky.properties.OrderProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 订单号生成器配置类
+ * 机器id优先读取配置，未配置时在Redis中抢占 order:worker:{id} 租约，并定时续期
+ * 生成器只在本地记录的租约有效期内生成id（有效期从发出抢占、续期命令前开始计算，早于Redis中的过期时间），
+ * 续期失败时不再使用原机器id：原机器id被其他实例占用时换用新的机器id，都不可用时暂停生成直到下次续期成功
+ */
+@Slf4j
+@Configuration
+public class OrderNumberConfiguration {
+
+    private static final String WORKER_KEY_PREFIX = "order:worker:";
+
+    // 仅当租约仍属于当前实例时续期
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    // 仅当租约仍属于当前实例时释放
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final OrderProperties orderProperties;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 当前实例的租约标识
+    private final String leaseToken = UUID.randomUUID().toString();
+    private String leaseKey;
+    private SnowflakeIdGenerator generator;
+
+    public OrderNumberConfiguration(OrderProperties orderProperties, StringRedisTemplate stringRedisTemplate) {
+        this.orderProperties = orderProperties;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Bean
+    public SnowflakeIdGenerator orderNumberGenerator() {
+        if (orderProperties.getWorkerId() != null) {
+            log.info("订单号生成器初始化完成，机器id：{}", orderProperties.getWorkerId());
+            return new SnowflakeIdGenerator(orderProperties.getWorkerId(), orderProperties.getMaxClockBackwardMillis());
+        }
+        long expireAt = leaseExpireAt();
+        Long workerId = leaseWorkerId();
+        if (workerId == null) {
+            throw new IllegalStateException("没有可用的订单号机器id");
+        }
+        log.info("订单号生成器初始化完成，机器id：{}", workerId);
+        generator = new SnowflakeIdGenerator(workerId, expireAt, orderProperties.getMaxClockBackwardMillis());
+        return generator;
+    }
+
+    /**
+     * 通过Redis租约分配机器id，没有可用的机器id时返回null
+     */
+    private Long leaseWorkerId() {
+        for (long id = 0; id <= SnowflakeIdGenerator.MAX_WORKER_ID; id++) {
+            String key = WORKER_KEY_PREFIX + id;
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(key, leaseToken, orderProperties.getWorkerLeaseTtl());
+            if (Boolean.TRUE.equals(acquired)) {
+                leaseKey = key;
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 机器id租约续期
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void renewLease() {
+        if (generator == null) {
+            return;
+        }
+        long expireAt = leaseExpireAt();
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(leaseKey),
+                leaseToken, String.valueOf(orderProperties.getWorkerLeaseTtl().toMillis()));
+        if (renewed != null && renewed != 0) {
+            generator.renew(generator.getWorkerId(), expireAt);
+            return;
+        }
+
+        // 租约已过期，尝试重新占用原来的机器id
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(leaseKey, leaseToken, orderProperties.getWorkerLeaseTtl());
+        if (Boolean.TRUE.equals(acquired)) {
+            generator.renew(generator.getWorkerId(), expireAt);
+            return;
+        }
+
+        // 原来的机器id已被其他实例占用，换用新的机器id
+        log.error("订单号机器id租约已被其他实例占用：{}", leaseKey);
+        Long workerId = leaseWorkerId();
+        if (workerId == null) {
+            // 租约到期后生成器拒绝生成订单号，直到下次续期时取得机器id
+            log.error("没有可用的订单号机器id，暂停生成订单号");
+            return;
+        }
+        log.info("订单号生成器换用新的机器id：{}", workerId);
+        generator.renew(workerId, expireAt);
+    }
+
+    /**
+     * 本次抢占或续期成功后的租约到期时间，在发出命令前计算，保证不晚于Redis中的过期时间
+     */
+    private long leaseExpireAt() {
+        return System.currentTimeMillis() + orderProperties.getWorkerLeaseTtl().toMillis();
+    }
+
+    /**
+     * 应用关闭时释放租约
+     */
+    @PreDestroy
+    public void releaseLease() {
+        if (leaseKey != null) {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(leaseKey), leaseToken);
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.sky.config;
 
+import com.sky.cache.CacheNamespaces;
+import com.sky.cache.CompactRedisSerializer;
+import com.sky.cache.LayeredCacheManager;
+import com.sky.cache.MenuCache;
+import com.sky.catalog.CatalogManager;
+import com.sky.properties.SkyCacheProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -14,7 +22,7 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Configuration
 public class RedisConfiguration {
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory, CompactRedisSerializer compactRedisSerializer) {
         try {
             // 记录开始创建Redis模板对象的日志
             log.info("开始创建Redis模板对象...");
@@ -26,7 +34,7 @@ public class RedisConfiguration {
             redisTemplate.setConnectionFactory(redisConnectionFactory);
 
             // 配置序列化器
-            configureSerializers(redisTemplate);
+            configureSerializers(redisTemplate, compactRedisSerializer);
 
             // 记录Redis模板对象创建完成的日志
             log.info("Redis模板对象创建完成");
@@ -38,13 +46,43 @@ public class RedisConfiguration {
         }
     }
 
+    /**
+     * Redis值序列化器
+     */
+    @Bean
+    public CompactRedisSerializer compactRedisSerializer(SkyCacheProperties skyCacheProperties) {
+        boolean writeJson = !"jdk".equalsIgnoreCase(skyCacheProperties.getValueCodec());
+        log.info("Redis值序列化格式：{}", writeJson ? "json" : "jdk");
+        return new CompactRedisSerializer(writeJson, skyCacheProperties.getCompressThreshold());
+    }
+
+    /**
+     * Redis消息监听容器，用于接收各节点的缓存清理、菜单快照重建通知
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       MenuCache menuCache, CacheNamespaces cacheNamespaces,
+                                                                       CatalogManager catalogManager,
+                                                                       LayeredCacheManager layeredCacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(menuCache, new ChannelTopic(MenuCache.EVICT_CHANNEL));
+        container.addMessageListener(cacheNamespaces, new ChannelTopic(CacheNamespaces.BUMP_CHANNEL));
+        container.addMessageListener(catalogManager, new ChannelTopic(CatalogManager.REBUILD_CHANNEL));
+        container.addMessageListener(layeredCacheManager, new ChannelTopic(LayeredCacheManager.EVICT_CHANNEL));
+        return container;
+    }
+
     /**
      * 配置RedisTemplate的序列化器
      */
-    private void configureSerializers(RedisTemplate<String, Object> redisTemplate) {
+    private void configureSerializers(RedisTemplate<String, Object> redisTemplate, CompactRedisSerializer compactRedisSerializer) {
         // 设置Key序列化器
         redisTemplate.setKeySerializer(new StringRedisSerializer());
         // 设置HashKey的序列化器
         redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        // 设置Value、HashValue的序列化器
+        redisTemplate.setValueSerializer(compactRedisSerializer);
+        redisTemplate.setHashValueSerializer(compactRedisSerializer);
     }
 }
\ No newline at end of file
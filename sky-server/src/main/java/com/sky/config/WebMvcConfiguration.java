@@ -129,6 +129,15 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         log.info("扩展MVC消息转换器...");
         // 创建消息转换器对象
         MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+        // 将配置后的 ObjectMapper 设置到转换器
+        converter.setObjectMapper(createObjectMapper());
+        converters.add(1, converter);
+   }
+
+    /**
+     * 创建MVC消息转换器使用的 ObjectMapper，预先序列化响应数据时也使用该配置，保证输出格式一致
+     */
+    public static ObjectMapper createObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
 
         // 注册 Java 8 日期时间模块
@@ -145,9 +154,6 @@ public class WebMvcConfiguration extends WebMvcConfigurationSupport {
         objectMapper.registerModule(javaTimeModule);
         // 禁用时间戳格式
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-
-        // 将配置后的 ObjectMapper 设置到转换器
-        converter.setObjectMapper(objectMapper);
-        converters.add(1, converter);
-   }
+        return objectMapper;
+    }
 }
\ No newline at end of file
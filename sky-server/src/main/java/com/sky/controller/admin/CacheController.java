@@ -0,0 +1,63 @@
+package com.sky.controller.admin;
+
+import com.sky.cache.LayeredCacheManager;
+import com.sky.cache.MenuCache;
+import com.sky.catalog.CatalogManager;
+import com.sky.catalog.CatalogSnapshot;
+import com.sky.result.Result;
+import com.sky.service.GeoService;
+import com.sky.task.WarmupRunner;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存监控
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/cache")
+@Tag(name = "缓存监控接口")
+public class CacheController {
+
+    private final LayeredCacheManager layeredCacheManager;
+    private final MenuCache menuCache;
+    private final GeoService geoService;
+    private final CatalogManager catalogManager;
+    private final WarmupRunner warmupRunner;
+
+    @Autowired
+    public CacheController(LayeredCacheManager layeredCacheManager, MenuCache menuCache, GeoService geoService,
+                           CatalogManager catalogManager, WarmupRunner warmupRunner) {
+        this.layeredCacheManager = layeredCacheManager;
+        this.menuCache = menuCache;
+        this.geoService = geoService;
+        this.catalogManager = catalogManager;
+        this.warmupRunner = warmupRunner;
+    }
+
+    /**
+     * 缓存统计
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "缓存统计", description = "各缓存的命中、未命中、清理次数，菜单快照版本及启动预热耗时")
+    public Result<Map<String, Object>> stats() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("springCache", layeredCacheManager.stats());
+        map.put("menuCache", menuCache.stats());
+        map.put("geoCache", geoService.stats());
+        CatalogSnapshot snapshot = catalogManager.current();
+        map.put("catalog", snapshot == null ? null : snapshot.summary());
+        Duration warmup = warmupRunner.getLastDuration();
+        map.put("warmupMillis", warmup == null ? null : warmup.toMillis());
+        return Result.success(map);
+    }
+}
@@ -1,5 +1,6 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.MenuCache;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
@@ -11,11 +12,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * 菜品管理
@@ -27,11 +26,11 @@ import java.util.Set;
 public class DishController {
 
     private final DishService dishService;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final MenuCache menuCache;
     @Autowired
-    public DishController(DishService dishService, RedisTemplate<String, Object> redisTemplate) {
+    public DishController(DishService dishService, MenuCache menuCache) {
         this.dishService = dishService;
-        this.redisTemplate = redisTemplate;
+        this.menuCache = menuCache;
     }
 
     /**
@@ -43,9 +42,8 @@ public class DishController {
         log.info("新增菜品:{}", dishDTO);
         dishService.saveWithFlavor(dishDTO);
 
-        //清理缓存数据[精确清理dish_categoryId]
-        String key = "dish_" + dishDTO.getCategoryId();
-        cleanCache(key);
+        //清理缓存数据[精确清理当前分类]
+        menuCache.evict(MenuCache.DISH, dishDTO.getCategoryId());
 
         return Result.success();
     }
@@ -70,8 +68,8 @@ public class DishController {
         log.info("批量删除菜品，ids:{}", ids);
         dishService.deleteBatch(ids);
 
-        // 清理缓存数据[所有以dish_开头的key]
-        cleanCache("dish_*");
+        // 清理缓存数据[所有菜品缓存]
+        cleanCache();
 
         return Result.success();
     }
@@ -96,8 +94,8 @@ public class DishController {
         log.info("修改菜品：{}", dishDTO);
         dishService.updateWithFlavor(dishDTO);
 
-        // 清理缓存数据[所有以dish_开头的key]
-        cleanCache("dish_*");
+        // 清理缓存数据[所有菜品缓存]
+        cleanCache();
 
         return Result.success();
     }
@@ -111,8 +109,8 @@ public class DishController {
         log.info("菜品起售停售：{}", id);
         dishService.startOrStop(status, id);
 
-        // 清理缓存数据[所有以dish_开头的key]
-        cleanCache("dish_*");
+        // 清理缓存数据[所有菜品缓存]
+        cleanCache();
 
         return Result.success();
     }
@@ -128,12 +126,8 @@ public class DishController {
         return Result.success(list);
     }
 
-    // 清理缓存数据
-    private void cleanCache(String pattern) {
-        Set<String> keys = redisTemplate.keys(pattern);
-        log.info("清理缓存数据：{}", keys);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-        }
+    // 清理所有菜品缓存数据（更新缓存版本号，旧数据自动过期）
+    private void cleanCache() {
+        menuCache.evictAll(MenuCache.DISH);
     }
 }
\ No newline at end of file
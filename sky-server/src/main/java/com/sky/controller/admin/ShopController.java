@@ -14,7 +14,7 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "店铺相关接口")
 public class ShopController {
 
-    private static final String KEY = "SHOP_STATUS";
+    public static final String KEY = "SHOP_STATUS";
 
     private final RedisTemplate<String, Object> redisTemplate;
 
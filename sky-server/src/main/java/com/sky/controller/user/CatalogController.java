@@ -0,0 +1,80 @@
+package com.sky.controller.user;
+
+import com.sky.catalog.CatalogManager;
+import com.sky.catalog.CatalogResponseWriter;
+import com.sky.catalog.CatalogSnapshot;
+import com.sky.constant.MessageConstant;
+import com.sky.result.Result;
+import com.sky.vo.CatalogSyncVO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+@RestController("userCatalogController")
+@RequestMapping("/user/catalog")
+@Tag(name = "C端-菜单快照接口")
+public class CatalogController {
+
+    private final CatalogManager catalogManager;
+    private final CatalogResponseWriter catalogResponseWriter;
+
+    @Autowired
+    public CatalogController(CatalogManager catalogManager, CatalogResponseWriter catalogResponseWriter) {
+        this.catalogManager = catalogManager;
+        this.catalogResponseWriter = catalogResponseWriter;
+    }
+
+    /**
+     * 查询菜单快照版本
+     */
+    @GetMapping("/version")
+    @Operation(summary = "查询菜单快照版本", description = "查询当前菜单快照的版本号、构建时间及数据量")
+    public Result<Map<String, Object>> version() {
+        CatalogSnapshot snapshot = catalogManager.current();
+        return Result.success(snapshot == null ? Collections.singletonMap("version", -1L) : snapshot.summary());
+    }
+
+    /**
+     * 菜单同步
+     * 传入客户端已有的版本号时只返回之后变更的数据，未传入或版本号已过期时返回全量数据
+     */
+    @GetMapping("/sync")
+    @Operation(summary = "菜单同步", description = "根据客户端已有的菜单版本号返回增量或全量数据")
+    public void sync(Long version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        CatalogSnapshot snapshot = catalogManager.current();
+        if (snapshot == null) {
+            catalogResponseWriter.write("sync:error", Result.error(MessageConstant.CATALOG_UNAVAILABLE), request, response);
+            return;
+        }
+
+        // 只有各节点共用的快照才能与客户端的版本比较，本节点单独构建的快照内容可能与其他节点的同一版本不同
+        if (!snapshot.isShared()) {
+            catalogResponseWriter.write(snapshot, "sync:full", snapshot::toSyncVO, request, response);
+            return;
+        }
+
+        String key = "sync:" + (version == null ? "full" : version);
+        if (version != null && version == snapshot.getVersion()) {
+            // 客户端已是最新版本
+            catalogResponseWriter.write(snapshot, key, () -> CatalogSyncVO.builder()
+                    .version(snapshot.getVersion()).full(false).build(), request, response);
+            return;
+        }
+
+        CatalogSnapshot previous = version == null ? null : catalogManager.history(version);
+        if (previous != null && previous.isShared()) {
+            catalogResponseWriter.write(snapshot, key, () -> snapshot.changesSince(previous), request, response);
+        } else {
+            catalogResponseWriter.write(snapshot, "sync:full", snapshot::toSyncVO, request, response);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.sky.controller.user;
 
+import com.sky.catalog.CatalogManager;
+import com.sky.catalog.CatalogSnapshot;
 import com.sky.entity.Category;
 import com.sky.result.Result;
 import com.sky.service.CategoryService;
@@ -17,10 +19,12 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogManager catalogManager;
 
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogManager catalogManager) {
         this.categoryService = categoryService;
+        this.catalogManager = catalogManager;
     }
 
     /**
@@ -29,6 +33,10 @@ public class CategoryController {
     @GetMapping("/list")
     @Operation(summary = "查询分类", description = "根据类型查询分类")
     public Result<List<Category>> list(Integer type) {
+        CatalogSnapshot snapshot = catalogManager.current();
+        if (snapshot != null) {
+            return Result.success(snapshot.categories(type));
+        }
         List<Category> list = categoryService.list(type);
         return Result.success(list);
     }
@@ -1,5 +1,9 @@
 package com.sky.controller.user;
 
+import com.sky.cache.MenuCache;
+import com.sky.catalog.CatalogManager;
+import com.sky.catalog.CatalogResponseWriter;
+import com.sky.catalog.CatalogSnapshot;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Dish;
 import com.sky.result.Result;
@@ -7,11 +11,14 @@ import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
 import java.util.List;
 
 @RestController("userDishController")
@@ -20,12 +27,17 @@ import java.util.List;
 public class DishController {
 
     private final DishService dishService;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final MenuCache menuCache;
+    private final CatalogManager catalogManager;
+    private final CatalogResponseWriter catalogResponseWriter;
 
     @Autowired
-    public DishController(DishService dishService, RedisTemplate<String, Object> redisTemplate) {
+    public DishController(DishService dishService, MenuCache menuCache, CatalogManager catalogManager,
+                          CatalogResponseWriter catalogResponseWriter) {
         this.dishService = dishService;
-        this.redisTemplate = redisTemplate;
+        this.menuCache = menuCache;
+        this.catalogManager = catalogManager;
+        this.catalogResponseWriter = catalogResponseWriter;
     }
 
     /**
@@ -33,24 +45,22 @@ public class DishController {
      */
     @GetMapping("/list")
     @Operation(summary = "根据分类id查询菜品", description = "根据分类id查询菜品")
-    public Result<List<DishVO>> list(Long categoryId) {
-        // 构造redis中的key，构造规则：dish_分类id
-        String key = "dish_" + categoryId;
-
-        //查询redis中是否存在该分类下的菜品
-        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
-        if (list != null && !list.isEmpty()) {
-            // 如果存在，直接返回，无需查询数据库
-            return Result.success(list);
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        //优先输出菜单快照中预先序列化的数据，数据未变更时返回304
+        CatalogSnapshot snapshot = catalogManager.current();
+        if (snapshot != null) {
+            catalogResponseWriter.write(snapshot, snapshot.categoryKey("dish", categoryId),
+                    () -> snapshot.dishes(categoryId), request, response);
+            return;
         }
-        // 如果不存在，查询数据库，将查询到的菜品数据保存到redis中
+
+        //快照不可用时查询缓存（本地缓存、redis），key构造规则：dish:v版本号:分类id
+        //缓存未命中时查询数据库并保存到缓存中，同一分类同时只查询一次
         Dish dish = new Dish();
         dish.setCategoryId(categoryId);
         dish.setStatus(StatusConstant.ENABLE);//查询起售中的菜品
 
-        list = dishService.listWithFlavor(dish);
-        redisTemplate.opsForValue().set(key, list);
-
-        return Result.success(list);
+        List<DishVO> list = menuCache.get(MenuCache.DISH, categoryId, () -> dishService.listWithFlavor(dish));
+        catalogResponseWriter.write("dish:" + categoryId, Result.success(list), request, response);
     }
 }
\ No newline at end of file
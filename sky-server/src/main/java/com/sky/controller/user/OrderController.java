@@ -2,6 +2,7 @@ package com.sky.controller.user;
 
 import com.sky.dto.OrdersPaymentDTO;
 import com.sky.dto.OrdersSubmitDTO;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
@@ -72,6 +73,17 @@ public class OrderController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 历史订单游标分页查询，首次查询不传cursor，之后传入上一页返回的nextCursor
+     * @param status   订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+     */
+    @GetMapping("/historyOrders/cursor")
+    @Operation(summary = "历史订单游标分页查询", description = "按下单时间倒序，使用上一页返回的游标查询下一页，不统计总数")
+    public Result<CursorPageResult<OrderVO>> cursorPage(String cursor, int pageSize, Integer status) {
+        CursorPageResult<OrderVO> pageResult = orderService.cursorQuery4User(cursor, pageSize, status);
+        return Result.success(pageResult);
+    }
+
     /**
      * 查询订单详情
      */
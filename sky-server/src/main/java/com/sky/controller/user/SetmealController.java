@@ -1,5 +1,8 @@
 package com.sky.controller.user;
 
+import com.sky.catalog.CatalogManager;
+import com.sky.catalog.CatalogResponseWriter;
+import com.sky.catalog.CatalogSnapshot;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Setmeal;
 import com.sky.result.Result;
@@ -7,12 +10,15 @@ import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
 import java.util.List;
 
 @RestController("userSetmealController")
@@ -21,10 +27,15 @@ import java.util.List;
 public class SetmealController {
 
     private final SetmealService setmealService;
+    private final CatalogManager catalogManager;
+    private final CatalogResponseWriter catalogResponseWriter;
 
     @Autowired
-    public SetmealController(SetmealService setmealService) {
+    public SetmealController(SetmealService setmealService, CatalogManager catalogManager,
+                             CatalogResponseWriter catalogResponseWriter) {
         this.setmealService = setmealService;
+        this.catalogManager = catalogManager;
+        this.catalogResponseWriter = catalogResponseWriter;
     }
 
     /**
@@ -32,14 +43,20 @@ public class SetmealController {
      */
     @GetMapping("/list")
     @Operation(summary = "根据分类id查询套餐", description = "根据分类id查询套餐")
-    @Cacheable(cacheNames = "setmealCache", key = "#categoryId")
-    public Result<List<Setmeal>> list(Long categoryId) {
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        //优先输出菜单快照中预先序列化的数据，数据未变更时返回304
+        CatalogSnapshot snapshot = catalogManager.current();
+        if (snapshot != null) {
+            catalogResponseWriter.write(snapshot, snapshot.categoryKey("setmeal", categoryId),
+                    () -> snapshot.setmeals(categoryId), request, response);
+            return;
+        }
         Setmeal setmeal = new Setmeal();
         setmeal.setCategoryId(categoryId);
         setmeal.setStatus(StatusConstant.ENABLE);
 
         List<Setmeal> list = setmealService.list(setmeal);
-        return Result.success(list);
+        catalogResponseWriter.write("setmeal:" + categoryId, Result.success(list), request, response);
     }
 
     /**
@@ -48,7 +65,13 @@ public class SetmealController {
     @GetMapping("/dish/{id}")
     @Operation(summary = "根据套餐id查询包含的菜品列表", description = "根据套餐id查询包含的菜品列表")
     public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id) {
-        List<DishItemVO> list = setmealService.getDishItemById(id);
+        CatalogSnapshot snapshot = catalogManager.current();
+        List<DishItemVO> list = snapshot == null ? null : snapshot.dishItems(id);
+        if (list != null) {
+            return Result.success(list);
+        }
+        // 快照不可用或套餐未起售时查询数据库
+        list = setmealService.getDishItemById(id);
         return Result.success(list);
     }
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ public interface AddressBookMapper {
             "         district_name, detail, label, is_default)" +
             "        values (#{userId}, #{consignee}, #{phone}, #{sex}, #{provinceCode}, #{provinceName}, #{cityCode}, #{cityName}," +
             "                #{districtCode}, #{districtName}, #{detail}, #{label}, #{isDefault})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
     void insert(AddressBook addressBook);
 
     /**
@@ -44,4 +45,17 @@ public interface AddressBookMapper {
      */
     @Delete("delete from address_book where id = #{id}")
     void deleteById(Long id);
+
+    /**
+     * 保存地址解析结果（地址文本未被修改时才写入，避免覆盖新地址）
+     */
+    @Update("update address_book set lng = #{lng}, lat = #{lat}, deliverable = #{deliverable}, distance = #{distance}" +
+            " where id = #{id} and city_name <=> #{cityName} and district_name <=> #{districtName} and detail <=> #{detail}")
+    void updateGeo(AddressBook addressBook);
+
+    /**
+     * 查询尚未解析坐标的地址，按id分批
+     */
+    @Select("select * from address_book where lng is null and id > #{lastId} order by id limit #{limit}")
+    List<AddressBook> listPendingGeo(Long lastId, int limit);
 }
\ No newline at end of file
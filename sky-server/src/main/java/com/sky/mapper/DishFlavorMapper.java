@@ -23,4 +23,9 @@ public interface DishFlavorMapper {
      */
     @Select("select * from dish_flavor where dish_id = #{dishId}")
     List<DishFlavor> getByDishId(Long dishId);
+
+    /**
+     * 根据菜品id批量查询对应的口味数据
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
\ No newline at end of file
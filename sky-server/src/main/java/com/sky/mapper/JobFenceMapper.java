@@ -0,0 +1,28 @@
+package com.sky.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface JobFenceMapper {
+
+    /**
+     * 任务的令牌行不存在时插入
+     */
+    @Insert("insert ignore into job_fence (name, token) values (#{name}, 0)")
+    void insertIfAbsent(String name);
+
+    /**
+     * 锁定并读取任务已写入的最大令牌，行锁保持到事务结束
+     */
+    @Select("select token from job_fence where name = #{name} for update")
+    Long lockToken(String name);
+
+    /**
+     * 更新任务已写入的最大令牌
+     */
+    @Update("update job_fence set token = #{token} where name = #{name}")
+    void updateToken(String name, long token);
+}
@@ -0,0 +1,65 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderEvent;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OrderEventMapper {
+
+    /**
+     * 插入订单事件
+     */
+    @Insert("insert into order_event (type, order_id, order_number, from_status, to_status, status, retry_count, next_retry_time, create_time) " +
+            "values (#{type}, #{orderId}, #{orderNumber}, #{fromStatus}, #{toStatus}, #{status}, #{retryCount}, #{nextRetryTime}, #{createTime})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    void insert(OrderEvent orderEvent);
+
+    /**
+     * 批量插入订单事件
+     */
+    void insertBatch(List<OrderEvent> orderEvents);
+
+    /**
+     * 查询到期待处理的事件，依赖索引 (status, next_retry_time)
+     */
+    @Select("select * from order_event where status = 0 and next_retry_time <= #{now} order by id limit #{limit}")
+    List<OrderEvent> getDue(LocalDateTime now, int limit);
+
+    /**
+     * 领取事件：到期的待处理事件才能领取，领取后在 leaseUntil 之前其他节点不会重复处理，返回影响行数
+     */
+    @Update("update order_event set next_retry_time = #{leaseUntil} where id = #{id} and status = 0 and next_retry_time <= #{now}")
+    int claim(Long id, LocalDateTime now, LocalDateTime leaseUntil);
+
+    /**
+     * 标记事件已处理
+     */
+    @Update("update order_event set status = 1 where id = #{id}")
+    void markDone(Long id);
+
+    /**
+     * 处理失败，记录重试次数、下次处理时间和已处理成功的订阅者
+     */
+    @Update("update order_event set status = #{status}, retry_count = #{retryCount}, next_retry_time = #{nextRetryTime}, delivered = #{delivered} where id = #{id}")
+    void markRetry(Long id, Integer status, Integer retryCount, LocalDateTime nextRetryTime, String delivered);
+
+    /**
+     * 查询指定时间之后创建的下单、状态变更事件，用于订单状态计数比对，依赖索引 (create_time)
+     */
+    @Select("select id, type, from_status, to_status, create_time from order_event where create_time >= #{since} and type in (1, 2)")
+    List<OrderEvent> getCountableSince(LocalDateTime since);
+
+    /**
+     * 删除指定时间之前已处理的事件
+     */
+    @Delete("delete from order_event where status = 1 and create_time < #{time}")
+    int deleteDoneBefore(LocalDateTime time);
+}
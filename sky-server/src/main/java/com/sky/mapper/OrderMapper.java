@@ -4,6 +4,7 @@ import com.github.pagehelper.Page;
 import com.sky.dto.*;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,6 +27,27 @@ public interface OrderMapper {
      */
     void update(Orders orders);
 
+    /**
+     * 订单状态为 expectedStatus 时修改订单信息，返回影响行数
+     */
+    int compareAndSetStatus(Orders orders, Integer expectedStatus);
+
+    /**
+     * 锁定订单并返回其状态，订单不存在时返回null，需在事务中执行
+     */
+    @Select("select status from orders where id = #{id} for update")
+    Integer lockStatusById(Long id);
+
+    /**
+     * 锁定指定id中状态为 status 的订单，返回锁定的订单id，需在事务中执行
+     */
+    List<Long> lockByIdsAndStatus(List<Long> ids, Integer status);
+
+    /**
+     * 批量修改指定id中状态为 expectedStatus 的订单，返回影响行数
+     */
+    int batchCompareAndSetStatus(List<Long> ids, Orders orders, Integer expectedStatus);
+
     /**
      * 根据订单号和用户id查询订单
      */
@@ -37,6 +59,37 @@ public interface OrderMapper {
      */
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 按订单号、手机号模糊搜索：通过 order_search_gram 中的n-gram定位候选订单后再按条件过滤
+     * unindexedBelow 不为空时，id小于该值（尚未补建索引）的订单仍按 like 条件查询
+     */
+    Page<Orders> searchQuery(OrdersPageQueryDTO query, List<String> numberGrams, List<String> phoneGrams,
+                             Long unindexedBelow);
+
+    /**
+     * 查询最大的订单id
+     */
+    @Select("select max(id) from orders")
+    Long getMaxId();
+
+    /**
+     * 按id倒序查询小于指定id的一批订单的订单号、手机号，用于补建搜索索引
+     */
+    @Select("select id, number, phone from orders where id < #{beforeId} order by id desc limit #{limit}")
+    List<Orders> listSearchFieldsBefore(Long beforeId, int limit);
+
+    /**
+     * 按id顺序查询大于指定id的一批订单的订单号、手机号，用于补建搜索索引
+     */
+    @Select("select id, number, phone from orders where id > #{afterId} order by id limit #{limit}")
+    List<Orders> listSearchFieldsAfter(Long afterId, int limit);
+
+    /**
+     * 用户订单游标分页查询：查询排在游标（下单时间, id）之后的订单，按下单时间、id倒序
+     * 依赖索引 (user_id, order_time, id)、(user_id, status, order_time, id)
+     */
+    List<Orders> cursorQuery4User(Long userId, Integer status, LocalDateTime cursorTime, Long cursorId, int limit);
+
     /**
      * 根据id查询订单
      */
@@ -48,12 +101,25 @@ public interface OrderMapper {
      */
     Integer countStatus(Integer toBeConfirmed);
 
+    /**
+     * 管理端-按状态分组统计订单数量
+     */
+    @Select("select status, count(id) count from orders group by status")
+    List<StatusCountDTO> countGroupByStatus();
+
     /**
      * 根据状态和下单时间查询订单
      */
     @Select("select * from orders where status = #{status} and order_time < #{orderTime}")
     List<Orders> getByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime);
 
+    /**
+     * 流式查询指定状态、下单时间之前的订单id，只返回 id % shardTotal = shardIndex 的订单，需在事务中遍历
+     */
+    @Select("select id from orders where status = #{status} and order_time < #{orderTime} and mod(id, #{shardTotal}) = #{shardIndex}")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    Cursor<Long> cursorIdsByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime, int shardIndex, int shardTotal);
+
     /**
      * 查询每日的营业额
      */
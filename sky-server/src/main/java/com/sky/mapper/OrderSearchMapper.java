@@ -0,0 +1,23 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderSearchGram;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+/**
+ * 订单搜索索引（order_search_gram）：订单号、手机号的n-gram
+ */
+@Mapper
+public interface OrderSearchMapper {
+
+    // 索引字段：订单号
+    int FIELD_NUMBER = 1;
+    // 索引字段：手机号
+    int FIELD_PHONE = 2;
+
+    /**
+     * 批量写入n-gram，已存在的跳过
+     */
+    void insertGrams(List<OrderSearchGram> grams);
+}
@@ -22,4 +22,7 @@ public interface SetmealDishMapper {
     //根据套餐id查询套餐和菜品的关联关系
     @Select("select * from setmeal_dish where setmeal_id = #{setmealId}")
     List<SetmealDish> getBySetmealId(Long id);
+
+    //根据套餐id集合批量查询套餐和菜品的关联关系
+    List<SetmealDish> getBySetmealIds(List<Long> setmealIds);
 }
\ No newline at end of file
@@ -27,6 +27,12 @@ public interface UserMapper {
     @Select("select * from user where id = #{userId}")
     User getById(Long userId);
 
+    /**
+     * 锁定用户行，用于串行化同一用户的购物车回写与清空
+     */
+    @Select("select id from user where id = #{userId} for update")
+    Long lockById(Long userId);
+
     /**
      * 查询每日新增用户数
      */
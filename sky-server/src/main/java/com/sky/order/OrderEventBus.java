@@ -0,0 +1,196 @@
+package com.sky.order;
+
+import com.sky.annotation.ClusterJob;
+import com.sky.entity.OrderEvent;
+import com.sky.mapper.OrderEventMapper;
+import com.sky.properties.OrderProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单事件总线（事务发件箱）
+ * 事件与订单修改在同一事务中写入 order_event 表，事务提交后交给有界线程池异步分发，请求线程不再等待WebSocket推送等副作用；
+ * 线程池已满、节点宕机或订阅者处理失败的事件由定时补偿任务重新分发，保证至少分发一次
+ * 分发前通过条件更新领取事件，同一事件同一时间只有一个节点处理；各订阅者的处理结果分别记录，重试时只分发给失败的订阅者
+ */
+@Slf4j
+@Component
+public class OrderEventBus {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    private final OrderEventMapper orderEventMapper;
+    private final List<OrderEventListener> listeners;
+    private final OrderProperties.Event properties;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public OrderEventBus(OrderEventMapper orderEventMapper, List<OrderEventListener> listeners, OrderProperties orderProperties) {
+        this.orderEventMapper = orderEventMapper;
+        this.listeners = listeners;
+        this.properties = orderProperties.getEvent();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "order-event-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 发布事件：在当前事务中写入，事务提交后异步分发；没有事务时写入后直接异步分发
+     */
+    public void publish(OrderEvent event) {
+        init(event, LocalDateTime.now());
+        orderEventMapper.insert(event);
+        afterCommit(List.of(event));
+    }
+
+    /**
+     * 批量发布事件
+     */
+    public void publishAll(List<OrderEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        events.forEach(event -> init(event, now));
+        orderEventMapper.insertBatch(events);
+        afterCommit(events);
+    }
+
+    /**
+     * 补偿任务：重新分发到期的待处理事件（线程池已满未能分发、处理租约超时、等待重试的事件）
+     */
+    @Scheduled(fixedDelay = 5000) // 每5秒执行一次
+    public void relay() {
+        submitAll(orderEventMapper.getDue(LocalDateTime.now(), properties.getRelayBatchSize()));
+    }
+
+    /**
+     * 清理已处理的事件
+     */
+    @Scheduled(cron = "0 30 3 * * ?") // 每天凌晨3点30分执行一次
+    @ClusterJob("orderEvent:cleanup")
+    public void cleanup() {
+        int count = orderEventMapper.deleteDoneBefore(LocalDateTime.now().minus(properties.getRetention()));
+        log.info("清理已处理的订单事件：{}条", count);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未分发的事件由其他节点或重启后的补偿任务处理
+        executor.shutdown();
+    }
+
+    private void init(OrderEvent event, LocalDateTime now) {
+        event.setStatus(OrderEvent.PENDING);
+        event.setRetryCount(0);
+        event.setNextRetryTime(now);
+        event.setCreateTime(now);
+    }
+
+    /**
+     * 事务提交后提交到线程池，没有事务时直接提交
+     */
+    private void afterCommit(List<OrderEvent> events) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitAll(events);
+                }
+            });
+        } else {
+            submitAll(events);
+        }
+    }
+
+    private void submitAll(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            if (!submit(event)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 提交到线程池，线程池已满时返回false，事件留给补偿任务处理
+     */
+    private boolean submit(OrderEvent event) {
+        try {
+            executor.execute(() -> dispatch(event));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("订单事件分发队列已满，等待补偿任务处理：id={}", event.getId());
+            return false;
+        }
+    }
+
+    /**
+     * 领取并分发事件，跳过之前已处理成功的订阅者；部分订阅者失败时只记录成功的订阅者，重试时不再重复分发给它们
+     */
+    private void dispatch(OrderEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        if (orderEventMapper.claim(event.getId(), now, now.plus(properties.getLease())) == 0) {
+            // 已被其他线程或节点领取
+            return;
+        }
+
+        Set<String> delivered = new LinkedHashSet<>();
+        if (StringUtils.hasText(event.getDelivered())) {
+            delivered.addAll(Arrays.asList(event.getDelivered().split(",")));
+        }
+        Exception failure = null;
+        for (OrderEventListener listener : listeners) {
+            String name = ClassUtils.getUserClass(listener).getSimpleName();
+            if (delivered.contains(name)) {
+                continue;
+            }
+            try {
+                listener.onEvent(event);
+                delivered.add(name);
+            } catch (Exception e) {
+                log.warn("订单事件订阅者处理失败：id={}, listener={}", event.getId(), name, e);
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            orderEventMapper.markDone(event.getId());
+            return;
+        }
+
+        int retryCount = event.getRetryCount() + 1;
+        if (retryCount >= properties.getMaxRetries()) {
+            log.error("订单事件处理失败，不再重试：id={}, type={}, orderId={}, delivered={}", event.getId(), event.getType(), event.getOrderId(), delivered, failure);
+            orderEventMapper.markRetry(event.getId(), OrderEvent.FAILED, retryCount, now, String.join(",", delivered));
+            return;
+        }
+        // 指数退避：2秒、4秒、8秒……最长5分钟
+        long backoffSeconds = Math.min(1L << Math.min(retryCount, 20), MAX_BACKOFF.getSeconds());
+        log.warn("订单事件处理失败，{}秒后重试：id={}, type={}, retryCount={}, delivered={}", backoffSeconds, event.getId(), event.getType(), retryCount, delivered);
+        orderEventMapper.markRetry(event.getId(), OrderEvent.PENDING, retryCount, LocalDateTime.now().plusSeconds(backoffSeconds), String.join(",", delivered));
+    }
+}
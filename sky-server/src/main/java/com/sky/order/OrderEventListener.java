@@ -0,0 +1,15 @@
+package com.sky.order;
+
+import com.sky.entity.OrderEvent;
+
+/**
+ * 订单事件订阅者
+ * 事件至少分发一次：重试时只分发给尚未处理成功的订阅者，但处理成功后节点宕机、处理租约超时仍可能重复分发，因此处理逻辑需要容忍重复事件
+ */
+public interface OrderEventListener {
+
+    /**
+     * 处理订单事件，抛出异常表示处理失败，稍后重试
+     */
+    void onEvent(OrderEvent event);
+}
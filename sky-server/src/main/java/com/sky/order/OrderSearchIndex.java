@@ -0,0 +1,138 @@
+package com.sky.order;
+
+import com.sky.annotation.ClusterJob;
+import com.sky.entity.OrderSearchGram;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderSearchMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.scheduler.ClusterJobContext;
+import com.sky.utils.NGramUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单号、手机号的n-gram搜索索引
+ * 新订单下单时写入索引；存量订单由补建任务从部署时的最大订单id开始按id倒序补建，
+ * 补建进度（id小于该值的订单尚未补建）保存在Redis中，搜索时未补建的部分仍按 like 查询，补建完成后只查询索引
+ * 倒序补建结束后再从起点顺序补建一遍，覆盖滚动发布期间旧版本节点写入的订单
+ */
+@Slf4j
+@Component
+public class OrderSearchIndex {
+
+    private static final String KEY = "order:search:backfill";
+
+    // 倒序补建进度：id小于该值的存量订单尚未补建，0表示倒序补建已完成
+    private static final String CURSOR = "cursor";
+
+    // 顺序补建进度：id不大于该值的订单已补建，初始为开始补建时的最大订单id
+    private static final String UPPER = "upper";
+
+    // 全部补建完成
+    private static final String DONE = "done";
+
+    // 每次执行补建的批数
+    private static final int BATCHES_PER_RUN = 10;
+
+    private final OrderMapper orderMapper;
+    private final OrderSearchMapper orderSearchMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final OrderProperties orderProperties;
+
+    @Autowired
+    public OrderSearchIndex(OrderMapper orderMapper, OrderSearchMapper orderSearchMapper,
+                            StringRedisTemplate stringRedisTemplate, OrderProperties orderProperties) {
+        this.orderMapper = orderMapper;
+        this.orderSearchMapper = orderSearchMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.orderProperties = orderProperties;
+    }
+
+    /**
+     * 写入订单的搜索索引，需与订单在同一事务中调用
+     */
+    public void index(Orders order) {
+        index(List.of(order));
+    }
+
+    /**
+     * 尚未补建索引的订单id上界：id小于返回值的订单需按 like 查询，返回0表示所有订单都已建立索引；
+     * 补建尚未开始或无法读取进度时返回null，此时不能使用索引
+     */
+    public Long unindexedBelow() {
+        try {
+            Object cursor = stringRedisTemplate.opsForHash().get(KEY, CURSOR);
+            return cursor == null ? null : Long.valueOf(cursor.toString());
+        } catch (RuntimeException e) {
+            log.warn("读取订单搜索索引补建进度失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 补建存量订单的搜索索引
+     */
+    @Scheduled(cron = "0 * * * * ?") // 每分钟执行一次
+    @ClusterJob("orderSearch:backfill")
+    public void backfill() {
+        Map<Object, Object> state = stringRedisTemplate.opsForHash().entries(KEY);
+        if (state.containsKey(DONE)) {
+            return;
+        }
+        if (!state.containsKey(CURSOR)) {
+            // 第一次执行：从当前最大的订单id开始，之后的订单下单时已写入索引
+            Long maxId = orderMapper.getMaxId();
+            long upper = maxId == null ? 0 : maxId;
+            stringRedisTemplate.opsForHash().put(KEY, UPPER, String.valueOf(upper));
+            stringRedisTemplate.opsForHash().put(KEY, CURSOR, String.valueOf(upper + 1));
+            log.info("开始补建订单搜索索引，最大订单id：{}", upper);
+            state = stringRedisTemplate.opsForHash().entries(KEY);
+        }
+
+        long cursor = Long.parseLong(state.get(CURSOR).toString());
+        long upper = Long.parseLong(state.get(UPPER).toString());
+        int batchSize = orderProperties.getSearchBackfillBatchSize();
+        for (int i = 0; i < BATCHES_PER_RUN && ClusterJobContext.isLockHeld(); i++) {
+            if (cursor > 0) {
+                // 倒序补建存量订单
+                List<Orders> orders = orderMapper.listSearchFieldsBefore(cursor, batchSize);
+                index(orders);
+                cursor = orders.size() < batchSize ? 0 : orders.get(orders.size() - 1).getId();
+                stringRedisTemplate.opsForHash().put(KEY, CURSOR, String.valueOf(cursor));
+                continue;
+            }
+            // 顺序补建开始补建之后写入的订单（滚动发布期间旧版本节点写入的订单没有索引）
+            List<Orders> orders = orderMapper.listSearchFieldsAfter(upper, batchSize);
+            index(orders);
+            if (!orders.isEmpty()) {
+                upper = orders.get(orders.size() - 1).getId();
+                stringRedisTemplate.opsForHash().put(KEY, UPPER, String.valueOf(upper));
+            }
+            if (orders.size() < batchSize) {
+                stringRedisTemplate.opsForHash().put(KEY, DONE, "1");
+                log.info("订单搜索索引补建完成");
+                return;
+            }
+        }
+        log.info("补建订单搜索索引：倒序进度 {}，顺序进度 {}", cursor, upper);
+    }
+
+    private void index(List<Orders> orders) {
+        List<OrderSearchGram> grams = new ArrayList<>();
+        for (Orders order : orders) {
+            NGramUtil.grams(order.getNumber()).forEach(gram -> grams.add(new OrderSearchGram(OrderSearchMapper.FIELD_NUMBER, gram, order.getId())));
+            NGramUtil.grams(order.getPhone()).forEach(gram -> grams.add(new OrderSearchGram(OrderSearchMapper.FIELD_PHONE, gram, order.getId())));
+        }
+        if (!grams.isEmpty()) {
+            orderSearchMapper.insertGrams(grams);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.sky.order;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.OrderEvent;
+import com.sky.entity.Orders;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.OrderMapper;
+import com.sky.scheduler.ClusterFence;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 订单状态机
+ * 状态变更通过一条带原状态条件的 update 完成（update ... where id = ? and status = ?），
+ * 只有一个原状态时不再先查询订单；有多个原状态时先用 select ... for update 读取当前状态，同一事务中再执行一条 update；
+ * 多个请求同时修改同一订单时只有一个能成功，其余按订单状态错误处理
+ * 修改成功后发布状态变更事件，与订单修改在同一事务中写入
+ */
+@Slf4j
+@Component
+public class OrderStateMachine {
+
+    private final OrderMapper orderMapper;
+    private final OrderEventBus orderEventBus;
+    private final ClusterFence clusterFence;
+    private final TransactionTemplate transactionTemplate;
+
+    // 批量流转每批使用独立事务，不加入调用方（如流式查询）的事务
+    private final TransactionTemplate batchTransactionTemplate;
+
+    @Autowired
+    public OrderStateMachine(OrderMapper orderMapper, OrderEventBus orderEventBus, ClusterFence clusterFence,
+                             TransactionTemplate transactionTemplate) {
+        this.orderMapper = orderMapper;
+        this.orderEventBus = orderEventBus;
+        this.clusterFence = clusterFence;
+        this.transactionTemplate = transactionTemplate;
+        this.batchTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.batchTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 执行状态流转，返回订单的原状态
+     * 订单不存在或状态不允许该流转时抛出业务异常
+     */
+    public Integer fire(OrderTransition transition, Orders orders) {
+        return fire(transition, orders, null);
+    }
+
+    /**
+     * 执行状态流转，返回订单的原状态
+     * beforeUpdate 在更新前以订单的原状态调用，用于按原状态设置需要同时修改的字段（如退款状态）
+     */
+    public Integer fire(OrderTransition transition, Orders orders, BiConsumer<Integer, Orders> beforeUpdate) {
+        return transit(transition, orders, beforeUpdate, true);
+    }
+
+    /**
+     * 尝试执行状态流转，返回订单的原状态，订单不存在或状态不允许时返回null
+     */
+    public Integer tryFire(OrderTransition transition, Orders orders, BiConsumer<Integer, Orders> beforeUpdate) {
+        return transit(transition, orders, beforeUpdate, false);
+    }
+
+    /**
+     * 批量执行状态流转，返回流转成功的订单数量，已不是原状态的订单跳过
+     * 在一个独立事务中锁定符合原状态的订单、一条 update 批量修改并批量写入状态变更事件；
+     * 在加锁执行的集群定时任务中调用时，每个事务先校验锁令牌，锁已被其他节点取得时停止，返回已流转的数量；
+     * orders 为需要同时修改的字段，不需要设置id
+     */
+    public int fireBatch(OrderTransition transition, List<Long> ids, Orders orders) {
+        orders.setStatus(transition.getTarget());
+        int affected = 0;
+        List<Long> remaining = new ArrayList<>(ids);
+        for (Integer source : transition.getSources()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            List<Long> locked = batchTransactionTemplate.execute(status -> {
+                if (!clusterFence.check()) {
+                    return null;
+                }
+                List<Long> lockedIds = orderMapper.lockByIdsAndStatus(remaining, source);
+                if (lockedIds.isEmpty()) {
+                    return lockedIds;
+                }
+                orderMapper.batchCompareAndSetStatus(lockedIds, orders, source);
+                List<OrderEvent> events = new ArrayList<>(lockedIds.size());
+                for (Long id : lockedIds) {
+                    events.add(OrderEvent.builder()
+                            .type(OrderEvent.STATUS_CHANGED)
+                            .orderId(id)
+                            .fromStatus(source)
+                            .toStatus(orders.getStatus())
+                            .build());
+                }
+                orderEventBus.publishAll(events);
+                return lockedIds;
+            });
+            if (locked == null) {
+                // 令牌校验失败
+                break;
+            }
+            affected += locked.size();
+            remaining.removeAll(locked);
+        }
+        return affected;
+    }
+
+    /**
+     * 在一个事务中执行状态流转（已有事务时加入该事务），更新成功时在同一事务中发布状态变更事件
+     * 只有一个原状态时直接执行一条带原状态条件的update；有多个原状态时先锁定订单读取当前状态，再执行一条update
+     *
+     * @param required 流转失败时是否抛出业务异常，否则返回null
+     */
+    private Integer transit(OrderTransition transition, Orders orders, BiConsumer<Integer, Orders> beforeUpdate,
+                            boolean required) {
+        orders.setStatus(transition.getTarget());
+        List<Integer> sources = transition.getSources();
+        Integer from = transactionTemplate.execute(status -> {
+            Integer source;
+            if (sources.size() == 1) {
+                source = sources.get(0);
+            } else {
+                source = orderMapper.lockStatusById(orders.getId());
+                if (source == null) {
+                    return fail(required, MessageConstant.ORDER_NOT_FOUND);
+                }
+                if (!sources.contains(source)) {
+                    return fail(required, MessageConstant.ORDER_STATUS_ERROR);
+                }
+            }
+
+            if (beforeUpdate != null) {
+                beforeUpdate.accept(source, orders);
+            }
+            if (orderMapper.compareAndSetStatus(orders, source) == 0) {
+                return null;
+            }
+            orderEventBus.publish(OrderEvent.builder()
+                    .type(OrderEvent.STATUS_CHANGED)
+                    .orderId(orders.getId())
+                    .orderNumber(orders.getNumber())
+                    .fromStatus(source)
+                    .toStatus(orders.getStatus())
+                    .build());
+            return source;
+        });
+        if (from != null) {
+            return from;
+        }
+
+        log.info("订单状态流转失败：id={}, transition={}", orders.getId(), transition);
+        if (required) {
+            // 只有一个原状态的流转更新失败时才查询订单，区分订单不存在和状态错误
+            if (orderMapper.getById(orders.getId()) == null) {
+                throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+            }
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        return null;
+    }
+
+    /**
+     * 流转失败：required 为true时抛出业务异常，否则返回null
+     */
+    private static Integer fail(boolean required, String message) {
+        if (required) {
+            throw new OrderBusinessException(message);
+        }
+        return null;
+    }
+}
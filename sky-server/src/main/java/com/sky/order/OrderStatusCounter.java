@@ -0,0 +1,308 @@
+package com.sky.order;
+
+import com.sky.annotation.ClusterJob;
+import com.sky.dto.StatusCountDTO;
+import com.sky.entity.OrderEvent;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderEventMapper;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 各状态订单数量计数器
+ * 订阅订单事件，下单、状态变更时更新本地的 LongAdder 并记录事件，每秒将事件批量写入Redis：
+ * 每个事件只计数一次（按事件记录已计数标记），重复分发的事件不会重复计数；
+ * 查询时读取Redis哈希并加上本节点尚未写入的增量，不再执行 count 查询；
+ * 定期与数据库的分组统计比对并修正偏差（异常退出丢失的增量、超出去重期限的重复事件等），比对不要求期间没有新的计数
+ */
+@Slf4j
+@Component
+public class OrderStatusCounter implements OrderEventListener {
+
+    // 全部订单数量
+    public static final int ALL = 0;
+
+    private static final String KEY = "order:status:count";
+
+    // 已计数的事件，成员为 事件id:原状态:新状态（下单事件原状态为0），分数为事件创建时间
+    private static final String APPLIED_KEY = "order:status:count:applied";
+
+    // 订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消，下标0为全部订单
+    private static final int MAX_STATUS = Orders.CANCELLED;
+
+    // 比对时视为可能尚未计数的事件范围，需大于事件分发的最长延迟（重试退避合计约15分钟）
+    private static final Duration WINDOW = Duration.ofHours(1);
+
+    // 容忍各节点时钟偏差，比对时只把窗口起点之后该时长内创建的已计数事件当作快照之后提交的事件
+    private static final Duration CLOCK_MARGIN = Duration.ofMinutes(5);
+
+    // 已计数标记的保留时间（按事件创建时间），需大于 WINDOW
+    private static final Duration APPLIED_RETENTION = Duration.ofHours(3);
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    // 逐个事件计数，已计数的事件跳过；计数不存在时只记录标记，由比对任务按数据库初始化
+    private static final RedisScript<Long> FLUSH_SCRIPT = new DefaultRedisScript<>(
+            "local exists = redis.call('exists', KEYS[1]) == 1 " +
+            "for i = 2, #ARGV, 2 do " +
+            "  if redis.call('zadd', KEYS[2], 'NX', ARGV[i], ARGV[i + 1]) == 1 and exists then " +
+            "    local from, to = string.match(ARGV[i + 1], '^%d+:(%d+):(%d+)$') " +
+            "    if from == '0' then redis.call('hincrby', KEYS[1], '0', 1) else redis.call('hincrby', KEYS[1], from, -1) end " +
+            "    redis.call('hincrby', KEYS[1], to, 1) " +
+            "  end " +
+            "end " +
+            "redis.call('zremrangebyscore', KEYS[2], '-inf', '(' .. ARGV[1]) " +
+            "return 0", Long.class);
+
+    // 按数据库快照计算应有的计数并写入全部字段，返回各状态的修正量
+    // ARGV[1]为已计数事件的比对起点（分数），ARGV[2..8]为快照中各状态的数量，其余为快照中窗口内已提交的事件；
+    // 快照中已提交但尚未计数的事件从应有计数中减去（之后计数时再加上），已计数但快照中没有的事件（快照之后提交）加到应有计数中，
+    // 因此比对期间有新的计数也能得到准确结果
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "local expected = {} " +
+            "for i = 0, 6 do expected[i] = tonumber(ARGV[i + 2]) end " +
+            "local function apply(member, sign) " +
+            "  local from, to = string.match(member, '^%d+:(%d+):(%d+)$') " +
+            "  from = tonumber(from) to = tonumber(to) " +
+            "  if from == 0 then expected[0] = expected[0] + sign else expected[from] = expected[from] - sign end " +
+            "  expected[to] = expected[to] + sign " +
+            "end " +
+            "local committed = {} " +
+            "for i = 9, #ARGV do " +
+            "  committed[ARGV[i]] = true " +
+            "  if not redis.call('zscore', KEYS[2], ARGV[i]) then apply(ARGV[i], -1) end " +
+            "end " +
+            "for _, member in ipairs(redis.call('zrangebyscore', KEYS[2], ARGV[1], '+inf')) do " +
+            "  if not committed[member] then apply(member, 1) end " +
+            "end " +
+            "local drift = {} " +
+            "for i = 0, 6 do " +
+            "  local current = tonumber(redis.call('hget', KEYS[1], tostring(i)) or '0') " +
+            "  drift[i + 1] = expected[i] - current " +
+            "  redis.call('hset', KEYS[1], tostring(i), expected[i]) " +
+            "end " +
+            "return drift", List.class);
+
+    private final OrderMapper orderMapper;
+    private final OrderEventMapper orderEventMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 分组统计与事件查询在同一个一致性快照中执行
+    private final TransactionTemplate snapshotTemplate;
+
+    // 尚未写入Redis的增量
+    private final LongAdder[] pending = new LongAdder[MAX_STATUS + 1];
+
+    // 尚未写入Redis的事件
+    private final ConcurrentLinkedQueue<Applied> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public OrderStatusCounter(OrderMapper orderMapper, OrderEventMapper orderEventMapper,
+                              StringRedisTemplate stringRedisTemplate, TransactionTemplate transactionTemplate) {
+        this.orderMapper = orderMapper;
+        this.orderEventMapper = orderEventMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.snapshotTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 下单、订单状态变更时更新计数，写入Redis时按事件去重
+     */
+    @Override
+    public void onEvent(OrderEvent event) {
+        Applied applied = Applied.of(event);
+        if (applied == null) {
+            return;
+        }
+        applied.addTo(pending, 1);
+        pendingEvents.add(applied);
+    }
+
+    /**
+     * 各状态的订单数量，key为订单状态，ALL为全部订单数量
+     */
+    public Map<Integer, Integer> counts() {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(KEY);
+        if (entries.isEmpty()) {
+            // 计数尚未初始化（如Redis数据丢失），按数据库初始化
+            reconcile();
+            entries = stringRedisTemplate.opsForHash().entries(KEY);
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < pending.length; i++) {
+            Object value = entries.get(String.valueOf(i));
+            long count = (value == null ? 0 : Long.parseLong(value.toString())) + pending[i].sum();
+            counts.put(i, (int) Math.max(count, 0));
+        }
+        return counts;
+    }
+
+    /**
+     * 启动时计数不存在则从数据库初始化
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(KEY))) {
+                reconcile();
+            }
+        } catch (Exception e) {
+            log.error("初始化订单状态计数失败", e);
+        }
+    }
+
+    /**
+     * 将本地的事件批量写入Redis
+     */
+    @Scheduled(fixedDelay = 1000) // 每秒执行一次
+    public void flush() {
+        while (!pendingEvents.isEmpty()) {
+            List<Applied> batch = new ArrayList<>();
+            Applied applied;
+            while (batch.size() < FLUSH_BATCH_SIZE && (applied = pendingEvents.poll()) != null) {
+                batch.add(applied);
+            }
+            if (!batch.isEmpty() && !flush(batch)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 与数据库比对并修正偏差，多个节点中只有取得锁的节点执行
+     */
+    @Scheduled(cron = "0 0/5 * * * ?") // 每5分钟执行一次，各节点同时触发，只有一个节点执行
+    @ClusterJob(value = "orderStatusCounter:reconcile", leaseSeconds = 60)
+    public void reconcile() {
+        flush();
+        LocalDateTime since = LocalDateTime.now().minus(WINDOW);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(toMillis(since.plus(CLOCK_MARGIN))));
+        snapshotTemplate.executeWithoutResult(status -> {
+            Map<Integer, Long> counts = load();
+            for (int i = 0; i < pending.length; i++) {
+                args.add(String.valueOf(counts.get(i)));
+            }
+            for (OrderEvent event : orderEventMapper.getCountableSince(since)) {
+                Applied applied = Applied.of(event);
+                if (applied != null) {
+                    args.add(applied.member);
+                }
+            }
+        });
+
+        List<?> drift = stringRedisTemplate.execute(RECONCILE_SCRIPT, List.of(KEY, APPLIED_KEY), args.toArray());
+        if (drift != null && drift.stream().anyMatch(diff -> ((Number) diff).longValue() != 0)) {
+            log.warn("修正订单状态计数偏差：{}", drift);
+        }
+    }
+
+    private boolean flush(List<Applied> batch) {
+        List<String> args = new ArrayList<>(batch.size() * 2 + 1);
+        args.add(String.valueOf(System.currentTimeMillis() - APPLIED_RETENTION.toMillis()));
+        for (Applied applied : batch) {
+            args.add(String.valueOf(applied.score));
+            args.add(applied.member);
+        }
+        try {
+            stringRedisTemplate.execute(FLUSH_SCRIPT, List.of(KEY, APPLIED_KEY), args.toArray());
+        } catch (RuntimeException e) {
+            // 写入失败时放回，下次重试
+            pendingEvents.addAll(batch);
+            log.error("写入订单状态计数失败：events={}", batch.size(), e);
+            return false;
+        }
+        batch.forEach(applied -> applied.addTo(pending, -1));
+        return true;
+    }
+
+    /**
+     * 从数据库查询各状态的订单数量
+     */
+    private Map<Integer, Long> load() {
+        List<StatusCountDTO> list = orderMapper.countGroupByStatus();
+        Map<Integer, Long> counts = new HashMap<>();
+        for (int i = 0; i < pending.length; i++) {
+            counts.put(i, 0L);
+        }
+        long all = 0;
+        for (StatusCountDTO statusCount : list) {
+            all += statusCount.getCount();
+            if (statusCount.getStatus() != null && counts.containsKey(statusCount.getStatus())) {
+                counts.put(statusCount.getStatus(), (long) statusCount.getCount());
+            }
+        }
+        counts.put(ALL, all);
+        return counts;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 一个事件对计数的影响：下单时全部订单和新状态加1，状态变更时原状态减1、新状态加1
+     */
+    private static class Applied {
+        private final int from; // 下单事件为0，即全部订单
+        private final int to;
+        private final String member;
+        private final long score;
+
+        private Applied(Long id, int from, int to, long score) {
+            this.from = from;
+            this.to = to;
+            this.member = id + ":" + from + ":" + to;
+            this.score = score;
+        }
+
+        static Applied of(OrderEvent event) {
+            if (event.getId() == null || !isStatus(event.getToStatus()) || event.getCreateTime() == null) {
+                return null;
+            }
+            if (OrderEvent.CREATED.equals(event.getType())) {
+                return new Applied(event.getId(), ALL, event.getToStatus(), toMillis(event.getCreateTime()));
+            }
+            if (OrderEvent.STATUS_CHANGED.equals(event.getType()) && isStatus(event.getFromStatus())) {
+                return new Applied(event.getId(), event.getFromStatus(), event.getToStatus(), toMillis(event.getCreateTime()));
+            }
+            return null;
+        }
+
+        void addTo(LongAdder[] counts, int sign) {
+            counts[from].add(from == ALL ? sign : -sign);
+            counts[to].add(sign);
+        }
+
+        private static boolean isStatus(Integer status) {
+            return status != null && status > ALL && status <= MAX_STATUS;
+        }
+    }
+}
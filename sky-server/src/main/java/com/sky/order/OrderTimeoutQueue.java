@@ -0,0 +1,103 @@
+package com.sky.order;
+
+import com.sky.entity.OrderEvent;
+import com.sky.entity.Orders;
+import com.sky.properties.OrderProperties;
+import com.sky.utils.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 待支付订单超时队列
+ * 订阅下单事件，按下单时间 + 支付超时时间将订单加入Redis有序集合（score为到期时间），支付或取消后移除；
+ * 各节点每秒取出到期的订单，通过 ZREM 领取，领取成功的节点负责取消，同一订单只会被一个节点处理
+ * Redis不可用时加入本地分层时间轮，由本节点到期处理；节点重启丢失的任务由 OrderTask 的低频兜底任务处理
+ */
+@Slf4j
+@Component
+public class OrderTimeoutQueue implements OrderEventListener {
+
+    private static final String KEY = "order:timeout";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final OrderProperties orderProperties;
+    private final TimingWheel timingWheel = new TimingWheel(1000, 60, System.currentTimeMillis());
+
+    @Autowired
+    public OrderTimeoutQueue(StringRedisTemplate stringRedisTemplate, OrderProperties orderProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.orderProperties = orderProperties;
+    }
+
+    @Override
+    public void onEvent(OrderEvent event) {
+        if (OrderEvent.CREATED.equals(event.getType()) && Orders.PENDING_PAYMENT.equals(event.getToStatus())) {
+            long orderTime = event.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            schedule(event.getOrderId(), orderTime + orderProperties.getPaymentTimeout().toMillis());
+        } else if (OrderEvent.STATUS_CHANGED.equals(event.getType()) && Orders.PENDING_PAYMENT.equals(event.getFromStatus())) {
+            remove(event.getOrderId());
+        }
+    }
+
+    /**
+     * 加入队列，deadline为到期时间（毫秒时间戳）
+     */
+    public void schedule(Long orderId, long deadline) {
+        try {
+            stringRedisTemplate.opsForZSet().add(KEY, orderId.toString(), deadline);
+        } catch (RuntimeException e) {
+            log.warn("订单加入超时队列失败，改用本地时间轮：orderId={}", orderId, e);
+            timingWheel.add(orderId, deadline);
+        }
+    }
+
+    /**
+     * 延迟一段时间后重新处理
+     */
+    public void retryLater(Long orderId, Duration delay) {
+        schedule(orderId, System.currentTimeMillis() + delay.toMillis());
+    }
+
+    /**
+     * 移除订单，移除失败时订单到期后的取消操作会因状态不符而忽略
+     */
+    public void remove(Long orderId) {
+        timingWheel.remove(orderId);
+        try {
+            stringRedisTemplate.opsForZSet().remove(KEY, orderId.toString());
+        } catch (RuntimeException e) {
+            log.warn("订单移出超时队列失败：orderId={}", orderId, e);
+        }
+    }
+
+    /**
+     * 取出到期的订单：本地时间轮中到期的订单，以及从Redis中领取成功的到期订单
+     */
+    public List<Long> pollDue(int limit) {
+        long now = System.currentTimeMillis();
+        List<Long> due = new ArrayList<>(timingWheel.advance(now));
+        try {
+            Set<String> members = stringRedisTemplate.opsForZSet().rangeByScore(KEY, 0, now, 0, limit);
+            if (members != null) {
+                for (String member : members) {
+                    // 移除成功即领取成功，其他节点不会再处理
+                    Long removed = stringRedisTemplate.opsForZSet().remove(KEY, member);
+                    if (removed != null && removed > 0) {
+                        due.add(Long.valueOf(member));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("查询超时队列失败", e);
+        }
+        return due;
+    }
+}
@@ -0,0 +1,48 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+
+import java.util.List;
+
+/**
+ * 订单状态流转：允许的原状态和目标状态
+ * 订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+ * 有多个原状态时先锁定订单读取当前状态再修改；批量流转时按原状态顺序逐个处理，常见的原状态放在前面
+ */
+public enum OrderTransition {
+
+    // 支付成功
+    PAY(Orders.TO_BE_CONFIRMED, Orders.PENDING_PAYMENT),
+    // 接单
+    CONFIRM(Orders.CONFIRMED, Orders.TO_BE_CONFIRMED),
+    // 拒单
+    REJECT(Orders.CANCELLED, Orders.TO_BE_CONFIRMED),
+    // 用户取消：待付款、待接单的订单可以取消
+    USER_CANCEL(Orders.CANCELLED, Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED),
+    // 管理端取消：未完成的订单都可以取消
+    ADMIN_CANCEL(Orders.CANCELLED, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS, Orders.PENDING_PAYMENT),
+    // 派送
+    DELIVER(Orders.DELIVERY_IN_PROGRESS, Orders.CONFIRMED),
+    // 完成
+    COMPLETE(Orders.COMPLETED, Orders.DELIVERY_IN_PROGRESS),
+    // 超时未支付自动取消
+    TIMEOUT_CANCEL(Orders.CANCELLED, Orders.PENDING_PAYMENT),
+    // 长时间派送中自动完成
+    AUTO_COMPLETE(Orders.COMPLETED, Orders.DELIVERY_IN_PROGRESS);
+
+    private final Integer target;
+    private final List<Integer> sources;
+
+    OrderTransition(Integer target, Integer... sources) {
+        this.target = target;
+        this.sources = List.of(sources);
+    }
+
+    public Integer getTarget() {
+        return target;
+    }
+
+    public List<Integer> getSources() {
+        return sources;
+    }
+}
@@ -0,0 +1,48 @@
+package com.sky.scheduler;
+
+import com.sky.mapper.JobFenceMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 令牌校验（fencing）：加锁执行的集群定时任务在每个写入事务中先调用 check，由数据库拒绝过期持有者的写入
+ * job_fence 表记录每个任务已写入的最大令牌，check 锁定该行直到事务结束，新旧持有者的写入事务因此串行执行：
+ * 新持有者写入后，租约已过期但仍在执行的旧持有者令牌更小，校验失败，不应再写入
+ */
+@Slf4j
+@Component
+public class ClusterFence {
+
+    private final JobFenceMapper jobFenceMapper;
+    @Autowired
+    public ClusterFence(JobFenceMapper jobFenceMapper) {
+        this.jobFenceMapper = jobFenceMapper;
+    }
+
+    /**
+     * 在写入事务中校验并记录本次执行的令牌，返回false时调用方不应写入
+     * 不在加锁执行的集群定时任务中调用时始终返回true
+     */
+    public boolean check() {
+        String name = ClusterJobContext.lockName();
+        Long token = ClusterJobContext.lockToken();
+        if (name == null || token == null) {
+            return true;
+        }
+        jobFenceMapper.insertIfAbsent(name);
+        Long written = jobFenceMapper.lockToken(name);
+        if (written != null && written > token) {
+            if (!ClusterJobContext.isLockHeld()) {
+                log.warn("定时任务锁已被其他节点取得，拒绝写入：{}，令牌 {} < {}", name, token, written);
+                return false;
+            }
+            // 锁仍由本次执行持有而令牌更小，说明协调存储中的令牌计数已重置（如Redis数据丢失），以当前令牌为准
+            log.warn("定时任务令牌计数已重置，重新记录令牌：{}，{} -> {}", name, written, token);
+        }
+        if (written == null || !written.equals(token)) {
+            jobFenceMapper.updateToken(name, token);
+        }
+        return true;
+    }
+}
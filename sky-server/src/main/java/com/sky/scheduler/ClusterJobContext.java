@@ -0,0 +1,77 @@
+package com.sky.scheduler;
+
+/**
+ * 当前线程正在执行的集群定时任务：锁令牌、分片信息，由 ClusterJobAspect 设置；写入前通过 ClusterFence 校验令牌
+ * 不在集群定时任务中调用时视为唯一分片、始终持有锁
+ */
+public class ClusterJobContext {
+
+    private static final ThreadLocal<ClusterJobContext> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final String owner;
+    private final Long token;
+    private final int shardIndex;
+    private final int shardTotal;
+    private final ClusterStore clusterStore;
+
+    public ClusterJobContext(String name, String owner, Long token, int shardIndex, int shardTotal, ClusterStore clusterStore) {
+        this.name = name;
+        this.owner = owner;
+        this.token = token;
+        this.shardIndex = shardIndex;
+        this.shardTotal = shardTotal;
+        this.clusterStore = clusterStore;
+    }
+
+    public static void set(ClusterJobContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 本节点的分片序号
+     */
+    public static int shardIndex() {
+        ClusterJobContext context = CURRENT.get();
+        return context == null ? 0 : context.shardIndex;
+    }
+
+    /**
+     * 分片总数
+     */
+    public static int shardTotal() {
+        ClusterJobContext context = CURRENT.get();
+        return context == null ? 1 : context.shardTotal;
+    }
+
+    /**
+     * 加锁执行时的任务名称，其他情况返回null
+     */
+    public static String lockName() {
+        ClusterJobContext context = CURRENT.get();
+        return context == null || context.token == null ? null : context.name;
+    }
+
+    /**
+     * 加锁执行时本次取得的令牌，其他情况返回null
+     */
+    public static Long lockToken() {
+        ClusterJobContext context = CURRENT.get();
+        return context == null ? null : context.token;
+    }
+
+    /**
+     * 锁是否仍由本次执行持有，长时间运行的任务在每批写入前检查，租约已过期（可能已被其他节点取得）时停止
+     */
+    public static boolean isLockHeld() {
+        ClusterJobContext context = CURRENT.get();
+        if (context == null || context.token == null) {
+            return true;
+        }
+        return context.clusterStore.isHeld(context.name, context.owner, context.token);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sky.scheduler;
+
+import com.sky.properties.SchedulerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 当前节点：生成节点id、定期心跳，并根据存活节点计算本节点的分片序号
+ */
+@Slf4j
+@Component
+public class ClusterNode {
+
+    private final ClusterStore clusterStore;
+    private final SchedulerProperties schedulerProperties;
+    private final String nodeId;
+
+    // 最近一次心跳得到的分片序号和分片总数
+    private volatile int shardIndex = 0;
+    private volatile int shardTotal = 1;
+
+    @Autowired
+    public ClusterNode(ClusterStore clusterStore, SchedulerProperties schedulerProperties) {
+        this.clusterStore = clusterStore;
+        this.schedulerProperties = schedulerProperties;
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardTotal() {
+        return shardTotal;
+    }
+
+    /**
+     * 心跳，同时刷新分片序号；节点加入或退出后，各节点在下次心跳后得到新的分片
+     */
+    @Scheduled(fixedDelay = 10000) // 每10秒执行一次
+    public void heartbeat() {
+        try {
+            List<String> nodes = clusterStore.heartbeat(nodeId, schedulerProperties.getNodeTtl());
+            int index = nodes.indexOf(nodeId);
+            if (index < 0) {
+                return;
+            }
+            if (index != shardIndex || nodes.size() != shardTotal) {
+                log.info("集群节点变化：{}，本节点分片 {}/{}", nodes, index, nodes.size());
+            }
+            shardIndex = index;
+            shardTotal = nodes.size();
+        } catch (Exception e) {
+            log.error("节点心跳失败", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.sky.scheduler;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 集群定时任务的协调存储：任务租约锁和存活节点登记
+ */
+public interface ClusterStore {
+
+    /**
+     * 尝试取得锁，成功时返回单调递增的令牌（fencing token，写入时由 ClusterFence 校验），锁已被持有时返回null
+     */
+    Long tryAcquire(String name, String owner, Duration lease);
+
+    /**
+     * 令牌对应的锁是否仍被当前持有者持有，租约过期或已被其他节点取得时返回false
+     */
+    boolean isHeld(String name, String owner, long token);
+
+    /**
+     * 释放锁：remaining 大于0时保留锁至该时长后自动过期，否则立即删除；锁已不属于当前持有者时不做处理
+     */
+    void release(String name, String owner, long token, Duration remaining);
+
+    /**
+     * 登记节点心跳，返回按节点id排序的存活节点
+     */
+    List<String> heartbeat(String nodeId, Duration ttl);
+}
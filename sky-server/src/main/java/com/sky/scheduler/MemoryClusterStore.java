@@ -0,0 +1,76 @@
+package com.sky.scheduler;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集群协调存储：进程内存，与Redis实现的语义相同，用于单节点开发和测试
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.scheduler", name = "store", havingValue = "memory")
+public class MemoryClusterStore implements ClusterStore {
+
+    // 锁名称 -> 锁
+    private final Map<String, Lock> locks = new HashMap<>();
+
+    // 锁名称 -> 最近发放的令牌
+    private final Map<String, Long> fences = new HashMap<>();
+
+    // 节点id -> 最近一次心跳时间
+    private final Map<String, Long> nodes = new HashMap<>();
+
+    public synchronized Long tryAcquire(String name, String owner, Duration lease) {
+        long now = System.currentTimeMillis();
+        Lock lock = locks.get(name);
+        if (lock != null && lock.expireAt > now) {
+            return null;
+        }
+        long token = fences.merge(name, 1L, Long::sum);
+        locks.put(name, new Lock(owner, token, now + lease.toMillis()));
+        return token;
+    }
+
+    public synchronized boolean isHeld(String name, String owner, long token) {
+        Lock lock = locks.get(name);
+        return lock != null && lock.expireAt > System.currentTimeMillis()
+                && lock.owner.equals(owner) && lock.token == token;
+    }
+
+    public synchronized void release(String name, String owner, long token, Duration remaining) {
+        if (!isHeld(name, owner, token)) {
+            return;
+        }
+        if (remaining.toMillis() > 0) {
+            locks.put(name, new Lock(owner, token, System.currentTimeMillis() + remaining.toMillis()));
+        } else {
+            locks.remove(name);
+        }
+    }
+
+    public synchronized List<String> heartbeat(String nodeId, Duration ttl) {
+        long now = System.currentTimeMillis();
+        nodes.put(nodeId, now);
+        nodes.values().removeIf(time -> time < now - ttl.toMillis());
+        List<String> list = new ArrayList<>(nodes.keySet());
+        list.sort(null);
+        return list;
+    }
+
+    private static class Lock {
+        private final String owner;
+        private final long token;
+        private final long expireAt;
+
+        Lock(String owner, long token, long expireAt) {
+            this.owner = owner;
+            this.token = token;
+            this.expireAt = expireAt;
+        }
+    }
+}
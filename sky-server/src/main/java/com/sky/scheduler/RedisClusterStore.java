@@ -0,0 +1,71 @@
+package com.sky.scheduler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 集群协调存储：Redis
+ * 锁的值为 持有者|令牌，令牌来自每个锁独立的自增计数，取得锁、释放锁都通过Lua脚本原子执行；
+ * 存活节点保存在有序集合中，score为最近一次心跳时间
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.scheduler", name = "store", havingValue = "redis", matchIfMissing = true)
+public class RedisClusterStore implements ClusterStore {
+
+    private static final String LOCK_PREFIX = "scheduler:lock:";
+    private static final String FENCE_PREFIX = "scheduler:fence:";
+    private static final String NODES_KEY = "scheduler:nodes";
+
+    // 锁不存在时自增令牌并写入锁，返回令牌
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 1 then return nil end " +
+            "local token = redis.call('incr', KEYS[2]) " +
+            "redis.call('set', KEYS[1], ARGV[1] .. '|' .. token, 'PX', ARGV[2]) " +
+            "return token", Long.class);
+
+    // 锁仍属于自己时缩短为剩余的最短持有时间或删除
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "if tonumber(ARGV[2]) > 0 then return redis.call('pexpire', KEYS[1], ARGV[2]) end " +
+            "return redis.call('del', KEYS[1])", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    public RedisClusterStore(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    public Long tryAcquire(String name, String owner, Duration lease) {
+        return stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(LOCK_PREFIX + name, FENCE_PREFIX + name),
+                owner, String.valueOf(lease.toMillis()));
+    }
+
+    public boolean isHeld(String name, String owner, long token) {
+        return (owner + "|" + token).equals(stringRedisTemplate.opsForValue().get(LOCK_PREFIX + name));
+    }
+
+    public void release(String name, String owner, long token, Duration remaining) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + name),
+                owner + "|" + token, String.valueOf(Math.max(remaining.toMillis(), 0)));
+    }
+
+    public List<String> heartbeat(String nodeId, Duration ttl) {
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+        stringRedisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - ttl.toMillis());
+        Set<String> nodes = stringRedisTemplate.opsForZSet().range(NODES_KEY, 0, -1);
+        List<String> list = nodes == null ? new ArrayList<>() : new ArrayList<>(nodes);
+        list.sort(null);
+        return list;
+    }
+}
@@ -0,0 +1,33 @@
+package com.sky.service;
+
+import com.sky.dto.GeoPointDTO;
+
+import java.util.Map;
+
+public interface GeoService {
+
+    /**
+     * 获取店铺坐标（启动时解析一次）
+     */
+    GeoPointDTO getShopLocation();
+
+    /**
+     * 地址解析，获取地址对应的坐标
+     */
+    GeoPointDTO geocode(String address);
+
+    /**
+     * 获取店铺到目的地的驾车距离，单位：米
+     */
+    int getDrivingDistance(GeoPointDTO destination);
+
+    /**
+     * 根据配送范围网格判断坐标位置，返回 DeliveryZoneGrid.INSIDE、OUTSIDE 或 BORDERLINE
+     */
+    byte locateDeliveryZone(GeoPointDTO destination);
+
+    /**
+     * 缓存命中统计
+     */
+    Map<String, Long> stats();
+}
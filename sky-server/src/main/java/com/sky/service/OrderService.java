@@ -1,6 +1,7 @@
 package com.sky.service;
 
 import com.sky.dto.*;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.vo.*;
 
@@ -26,6 +27,11 @@ public interface OrderService {
      */
     PageResult<OrderVO> pageQuery4User(int page, int pageSize, Integer status);
 
+    /**
+     * 历史订单游标分页查询
+     */
+    CursorPageResult<OrderVO> cursorQuery4User(String cursor, int pageSize, Integer status);
+
     /**
      * 订单详情查询
      */
@@ -4,6 +4,7 @@ import com.sky.context.BaseContext;
 import com.sky.entity.AddressBook;
 import com.sky.mapper.AddressBookMapper;
 import com.sky.service.AddressBookService;
+import com.sky.task.AddressGeoTask;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,10 +16,12 @@ import java.util.List;
 public class AddressBookServiceImpl implements AddressBookService {
 
     private final AddressBookMapper addressBookMapper;
+    private final AddressGeoTask addressGeoTask;
 
     @Autowired
-    public AddressBookServiceImpl(AddressBookMapper addressBookMapper) {
+    public AddressBookServiceImpl(AddressBookMapper addressBookMapper, AddressGeoTask addressGeoTask) {
         this.addressBookMapper = addressBookMapper;
+        this.addressGeoTask = addressGeoTask;
     }
 
     /**
@@ -35,6 +38,9 @@ public class AddressBookServiceImpl implements AddressBookService {
         addressBook.setUserId(BaseContext.getCurrentId());
         addressBook.setIsDefault(0);
         addressBookMapper.insert(addressBook);
+
+        // 异步解析坐标和配送距离
+        addressGeoTask.resolveAsync(addressBook.getId());
     }
 
     /**
@@ -49,6 +55,11 @@ public class AddressBookServiceImpl implements AddressBookService {
      */
     public void update(AddressBook addressBook) {
         addressBookMapper.update(addressBook);
+
+        // 详细地址变更后坐标已被清空，重新异步解析
+        if (addressBook.getDetail() != null) {
+            addressGeoTask.resolveAsync(addressBook.getId());
+        }
     }
 
     /**
@@ -2,6 +2,7 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.catalog.CatalogManager;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.CategoryDTO;
@@ -16,6 +17,8 @@ import com.sky.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
@@ -29,17 +32,21 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryMapper categoryMapper;
     private final DishMapper dishMapper;
     private final SetmealMapper setmealMapper;
+    private final CatalogManager catalogManager;
 
     @Autowired
-    public CategoryServiceImpl(CategoryMapper categoryMapper, DishMapper dishMapper, SetmealMapper setmealMapper) {
+    public CategoryServiceImpl(CategoryMapper categoryMapper, DishMapper dishMapper, SetmealMapper setmealMapper,
+                               CatalogManager catalogManager) {
         this.categoryMapper = categoryMapper;
         this.dishMapper = dishMapper;
         this.setmealMapper = setmealMapper;
+        this.catalogManager = catalogManager;
     }
 
     /**
      * 新增分类
      */
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void save(CategoryDTO categoryDTO) {
         Category category = new Category();
         //属性拷贝
@@ -49,6 +56,9 @@ public class CategoryServiceImpl implements CategoryService {
         category.setStatus(StatusConstant.DISABLE);
 
         categoryMapper.insert(category);
+
+        //重建C端菜单快照
+        catalogManager.refresh();
     }
 
     /**
@@ -64,6 +74,7 @@ public class CategoryServiceImpl implements CategoryService {
     /**
      * 根据id删除分类
      */
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void deleteById(Long id) {
         //查询当前分类是否关联了菜品，如果关联了就抛出业务异常
         Integer count = dishMapper.countByCategoryId(id);
@@ -81,32 +92,38 @@ public class CategoryServiceImpl implements CategoryService {
 
         //删除分类数据
         categoryMapper.deleteById(id);
+        catalogManager.refresh();
     }
 
     /**
      * 修改分类
      */
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void update(CategoryDTO categoryDTO) {
         Category category = new Category();
         BeanUtils.copyProperties(categoryDTO,category);
 
         categoryMapper.update(category);
+        catalogManager.refresh();
     }
 
     /**
      * 启用、禁用分类
      */
+    @CacheEvict(cacheNames = "categoryCache", allEntries = true)
     public void startOrStop(Integer status, Long id) {
         Category category = Category.builder()
                 .id(id)
                 .status(status)
                 .build();
         categoryMapper.update(category);
+        catalogManager.refresh();
     }
 
     /**
      * 根据类型查询分类
      */
+    @Cacheable(cacheNames = "categoryCache", key = "'type:' + #type")
     public List<Category> list(Integer type) {
         return categoryMapper.list(type);
     }
@@ -2,6 +2,7 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.catalog.CatalogManager;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.DishDTO;
@@ -23,7 +24,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
@@ -33,12 +36,15 @@ public class DishServiceImpl implements DishService {
     private final DishMapper dishMapper;
     private final DishFlavorMapper dishFlavorMapper;
     private final SetmealDishMapper setmealDishMapper;
+    private final CatalogManager catalogManager;
 
     @Autowired
-    public DishServiceImpl(DishMapper dishMapper, DishFlavorMapper dishFlavorMapper, SetmealDishMapper setmealDishMapper) {
+    public DishServiceImpl(DishMapper dishMapper, DishFlavorMapper dishFlavorMapper, SetmealDishMapper setmealDishMapper,
+                           CatalogManager catalogManager) {
         this.dishMapper = dishMapper;
         this.dishFlavorMapper = dishFlavorMapper;
         this.setmealDishMapper = setmealDishMapper;
+        this.catalogManager = catalogManager;
     }
 
     /**
@@ -61,6 +67,9 @@ public class DishServiceImpl implements DishService {
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dashId));
             dishFlavorMapper.insertBatch(flavors);
         }
+
+        //事务提交后重建C端菜单快照
+        catalogManager.refresh();
     }
 
     /**
@@ -112,6 +121,7 @@ public class DishServiceImpl implements DishService {
             // 批量删除菜品及其口味
             dishMapper.deleteByIds(validIds);
             dishFlavorMapper.deleteByDishIds(validIds);
+            catalogManager.refresh();
         } catch (Exception e) {
             log.error("批量删除菜品失败", e);
             throw e; // 将异常重新抛出，确保调用方能感知错误
@@ -157,6 +167,7 @@ public class DishServiceImpl implements DishService {
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishDTO.getId()));
             dishFlavorMapper.insertBatch(flavors);
         }
+        catalogManager.refresh();
     }
 
     /**
@@ -168,6 +179,7 @@ public class DishServiceImpl implements DishService {
                 .status(status)
                 .build();
         dishMapper.update(dish);
+        catalogManager.refresh();
     }
 
     /**
@@ -183,21 +195,30 @@ public class DishServiceImpl implements DishService {
 
     /**
      * C端-条件查询菜品和口味
+     * 口味数据按菜品id批量查询后在内存中分组，查询次数与菜品数量无关
      */
     public List<DishVO> listWithFlavor(Dish dish) {
         List<Dish> dishList = dishMapper.list(dish);
+        if (dishList.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        List<DishVO> dishVOList = new ArrayList<>();
-
+        List<DishVO> dishVOList = new ArrayList<>(dishList.size());
+        Map<Long, DishVO> dishVOMap = new HashMap<>(dishList.size() * 2);
         for (Dish d : dishList) {
             DishVO dishVO = new DishVO();
-            BeanUtils.copyProperties(d,dishVO);
-
-            //根据菜品id查询对应的口味
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
-
-            dishVO.setFlavors(flavors);
+            BeanUtils.copyProperties(d, dishVO);
             dishVOList.add(dishVO);
+            dishVOMap.put(d.getId(), dishVO);
+        }
+
+        //批量查询所有菜品的口味，并归到对应的菜品中
+        List<DishFlavor> flavors = dishFlavorMapper.getByDishIds(new ArrayList<>(dishVOMap.keySet()));
+        for (DishFlavor flavor : flavors) {
+            DishVO dishVO = dishVOMap.get(flavor.getDishId());
+            if (dishVO != null) {
+                dishVO.getFlavors().add(flavor);
+            }
         }
 
         return dishVOList;
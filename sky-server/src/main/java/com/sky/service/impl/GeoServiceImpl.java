@@ -0,0 +1,284 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.dto.GeoPointDTO;
+import com.sky.exception.OrderBusinessException;
+import com.sky.properties.GeoProperties;
+import com.sky.service.GeoService;
+import com.sky.utils.DeliveryZoneGrid;
+import com.sky.utils.HttpClientUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 百度地图地址解析、路线规划（本地缓存 + Redis 二级缓存）
+ */
+@Service
+@Slf4j
+public class GeoServiceImpl implements GeoService {
+
+    private static final String GEOCODING_URL = "https://api.map.baidu.com/geocoding/v3";
+    private static final String DRIVING_URL = "https://api.map.baidu.com/directionlite/v1/driving";
+
+    // Redis中的key，构造规则：geo:addr:地址、geo:dist:起点|终点
+    private static final String ADDRESS_KEY_PREFIX = "geo:addr:";
+    private static final String DISTANCE_KEY_PREFIX = "geo:dist:";
+
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+
+    @Value("${sky.baidu.ak}")
+    private String ak;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final GeoProperties geoProperties;
+
+    private final Cache<String, GeoPointDTO> addressCache;
+    private final Cache<String, Integer> distanceCache;
+
+    // 命中统计：本地缓存命中、Redis命中、调用百度接口
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // 配送范围网格判定统计
+    private final LongAdder zoneInside = new LongAdder();
+    private final LongAdder zoneOutside = new LongAdder();
+    private final LongAdder zoneBorderline = new LongAdder();
+
+    private volatile GeoPointDTO shopLocation;
+    private volatile DeliveryZoneGrid deliveryZoneGrid;
+
+    @Autowired
+    public GeoServiceImpl(RedisTemplate<String, Object> redisTemplate, GeoProperties geoProperties) {
+        this.redisTemplate = redisTemplate;
+        this.geoProperties = geoProperties;
+        this.addressCache = Caffeine.newBuilder()
+                .expireAfterWrite(geoProperties.getCacheTtl())
+                .maximumSize(geoProperties.getCacheMaxSize())
+                .build();
+        this.distanceCache = Caffeine.newBuilder()
+                .expireAfterWrite(geoProperties.getCacheTtl())
+                .maximumSize(geoProperties.getCacheMaxSize())
+                .build();
+    }
+
+    /**
+     * 应用启动完成后解析店铺坐标，失败时在首次使用时重试
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resolveShopLocation() {
+        try {
+            shopLocation = requestGeocode(shopAddress, "店铺地址");
+            log.info("店铺坐标解析完成：{} -> {}", shopAddress, shopLocation.toLngLat());
+            getDeliveryZoneGrid();
+        } catch (Exception e) {
+            log.warn("启动时店铺坐标解析失败，将在下单时重试：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取店铺坐标
+     */
+    public GeoPointDTO getShopLocation() {
+        GeoPointDTO location = shopLocation;
+        if (location == null) {
+            synchronized (this) {
+                if (shopLocation == null) {
+                    shopLocation = requestGeocode(shopAddress, "店铺地址");
+                }
+                location = shopLocation;
+            }
+        }
+        return location;
+    }
+
+    /**
+     * 地址解析
+     */
+    public GeoPointDTO geocode(String address) {
+        GeoPointDTO point = addressCache.getIfPresent(address);
+        if (point != null) {
+            localHits.increment();
+            return point;
+        }
+
+        String key = ADDRESS_KEY_PREFIX + address;
+        point = (GeoPointDTO) getFromRedis(key);
+        if (point != null) {
+            redisHits.increment();
+        } else {
+            misses.increment();
+            point = requestGeocode(address, "收货地址");
+            putToRedis(key, point);
+        }
+        addressCache.put(address, point);
+        return point;
+    }
+
+    /**
+     * 店铺到目的地的驾车距离
+     */
+    public int getDrivingDistance(GeoPointDTO destination) {
+        String origin = getShopLocation().toLngLat();
+        String cacheKey = origin + "|" + destination.toLngLat();
+
+        Integer distance = distanceCache.getIfPresent(cacheKey);
+        if (distance != null) {
+            localHits.increment();
+            return distance;
+        }
+
+        String key = DISTANCE_KEY_PREFIX + cacheKey;
+        distance = (Integer) getFromRedis(key);
+        if (distance != null) {
+            redisHits.increment();
+        } else {
+            misses.increment();
+            distance = requestDrivingDistance(origin, destination.toLngLat());
+            putToRedis(key, distance);
+        }
+        distanceCache.put(cacheKey, distance);
+        return distance;
+    }
+
+    /**
+     * 根据配送范围网格判断坐标位置
+     */
+    public byte locateDeliveryZone(GeoPointDTO destination) {
+        byte zone = getDeliveryZoneGrid().locate(destination.getLng(), destination.getLat());
+        if (zone == DeliveryZoneGrid.INSIDE) {
+            zoneInside.increment();
+        } else if (zone == DeliveryZoneGrid.OUTSIDE) {
+            zoneOutside.increment();
+        } else {
+            zoneBorderline.increment();
+        }
+        return zone;
+    }
+
+    /**
+     * 获取配送范围网格，店铺坐标或配送范围变化时重新构建
+     */
+    private DeliveryZoneGrid getDeliveryZoneGrid() {
+        GeoPointDTO shop = getShopLocation();
+        int radius = geoProperties.getDeliveryRadius();
+        DeliveryZoneGrid grid = deliveryZoneGrid;
+        if (grid == null || !grid.matches(shop.getLng(), shop.getLat(), radius)) {
+            grid = new DeliveryZoneGrid(shop.getLng(), shop.getLat(), radius,
+                    geoProperties.getGridCellSize(), geoProperties.getDetourFactor());
+            deliveryZoneGrid = grid;
+            log.info("配送范围网格构建完成，店铺坐标：{}，配送范围：{}米", shop.toLngLat(), radius);
+        }
+        return grid;
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("localHits", localHits.sum());
+        stats.put("redisHits", redisHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("addressCacheSize", addressCache.estimatedSize());
+        stats.put("distanceCacheSize", distanceCache.estimatedSize());
+        stats.put("zoneInside", zoneInside.sum());
+        stats.put("zoneOutside", zoneOutside.sum());
+        stats.put("zoneBorderline", zoneBorderline.sum());
+        return stats;
+    }
+
+    // Redis作为二级缓存，读写失败时不影响下单流程
+    private Object getFromRedis(String key) {
+        try {
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("读取地理缓存失败，key: {}，错误信息: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putToRedis(String key, Object value) {
+        try {
+            redisTemplate.opsForValue().set(key, value, geoProperties.getCacheTtl());
+        } catch (Exception e) {
+            log.warn("写入地理缓存失败，key: {}，错误信息: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 调用百度地理编码接口
+     */
+    private GeoPointDTO requestGeocode(String address, String desc) {
+        Map<String, String> params = new HashMap<>();
+        params.put("address", address);
+        params.put("output", "json");
+        params.put("ak", ak);
+
+        String response = HttpClientUtil.doGet(GEOCODING_URL, params);
+        JSONObject json = JSON.parseObject(response);
+
+        if (json == null || !"0".equals(json.getString("status"))) {
+            log.error("{}解析失败，响应: {}", desc, response);
+            throw new OrderBusinessException(desc + "解析失败，状态码：" + (json == null ? null : json.getString("status")));
+        }
+
+        JSONObject location = json.getJSONObject("result").getJSONObject("location");
+        return new GeoPointDTO(location.getDoubleValue("lng"), location.getDoubleValue("lat"));
+    }
+
+    /**
+     * 调用百度驾车路线规划接口
+     */
+    private int requestDrivingDistance(String origin, String destination) {
+        log.info("路线规划请求参数: origin={}, destination={}", origin, destination);
+
+        Map<String, String> params = new HashMap<>();
+        params.put("origin", origin);
+        params.put("destination", destination);
+        params.put("ak", ak);
+        params.put("steps_info", "0"); // 不返回详细路径信息
+        params.put("coord_type", "bd09ll"); // 明确指定坐标系
+
+        String response = HttpClientUtil.doGet(DRIVING_URL, params);
+        JSONObject json = JSON.parseObject(response);
+
+        if (json == null || !"0".equals(json.getString("status"))) {
+            String debugUrl = DRIVING_URL +
+                    "?origin=" + URLEncoder.encode(origin, StandardCharsets.UTF_8) +
+                    "&destination=" + URLEncoder.encode(destination, StandardCharsets.UTF_8) +
+                    "&ak=" + ak +
+                    "&steps_info=0" +
+                    "&coord_type=bd09ll";
+
+            log.error("路线规划失败，完整请求URL: {}", debugUrl);
+            log.error("失败响应: {}", response);
+            throw new OrderBusinessException("配送路线规划失败，状态码：" + (json == null ? null : json.getString("status")));
+        }
+
+        JSONArray routes = json.getJSONObject("result").getJSONArray("routes");
+        if (routes == null || routes.isEmpty()) {
+            throw new OrderBusinessException("无有效路线数据");
+        }
+
+        // 单位为米
+        return routes.getJSONObject(0).getIntValue("distance");
+    }
+}
@@ -1,8 +1,7 @@
 package com.sky.service.impl;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.sky.cart.CartStore;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.github.xiaoymin.knife4j.core.util.CollectionUtils;
@@ -14,22 +13,29 @@ import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.order.OrderEventBus;
+import com.sky.order.OrderSearchIndex;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.OrderStatusCounter;
+import com.sky.order.OrderTransition;
+import com.sky.properties.GeoProperties;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
+import com.sky.service.GeoService;
 import com.sky.service.OrderService;
-import com.sky.utils.HttpClientUtil;
+import com.sky.utils.DeliveryZoneGrid;
+import com.sky.utils.NGramUtil;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
-import com.sky.websocket.WebSocketServer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -42,35 +48,47 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
-    @Value("${sky.shop.address}")
-    private String shopAddress;
-
-    @Value("${sky.baidu.ak}")
-    private String ak;
+    // 游标分页每页最大条数
+    private static final int MAX_CURSOR_PAGE_SIZE = 50;
 
     private final OrderMapper orderMapper;
     private final OrderDetailMapper orderDetailMapper;
-    private final ShoppingCartMapper shoppingCartMapper;
+    private final CartStore cartStore;
     private final UserMapper userMapper;
     private final AddressBookMapper addressBookMapper;
-    private final WebSocketServer webSocketServer;
+    private final OrderEventBus orderEventBus;
+    private final GeoService geoService;
+    private final GeoProperties geoProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final SnowflakeIdGenerator orderNumberGenerator;
+    private final OrderSearchIndex orderSearchIndex;
+    private final OrderStatusCounter orderStatusCounter;
+    private final OrderStateMachine orderStateMachine;
 //    @Autowired
 //    private WeChatPayUtil weChatPayUtil;
 
     @Autowired
-    public OrderServiceImpl(OrderMapper orderMapper, OrderDetailMapper orderDetailMapper, ShoppingCartMapper shoppingCartMapper, UserMapper userMapper, AddressBookMapper addressBookMapper, WebSocketServer webSocketServer) {
+    public OrderServiceImpl(OrderMapper orderMapper, OrderDetailMapper orderDetailMapper, CartStore cartStore, UserMapper userMapper, AddressBookMapper addressBookMapper, OrderEventBus orderEventBus, GeoService geoService, GeoProperties geoProperties, TransactionTemplate transactionTemplate, SnowflakeIdGenerator orderNumberGenerator, OrderSearchIndex orderSearchIndex, OrderStatusCounter orderStatusCounter, OrderStateMachine orderStateMachine) {
         this.orderMapper = orderMapper;
         this.orderDetailMapper = orderDetailMapper;
-        this.shoppingCartMapper = shoppingCartMapper;
+        this.cartStore = cartStore;
         this.userMapper = userMapper;
         this.addressBookMapper = addressBookMapper;
-        this.webSocketServer = webSocketServer;
+        this.orderEventBus = orderEventBus;
+        this.geoService = geoService;
+        this.geoProperties = geoProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.orderSearchIndex = orderSearchIndex;
+        this.orderStatusCounter = orderStatusCounter;
+        this.orderStateMachine = orderStateMachine;
     }
 
     /**
      * 用户下单
+     * 地址校验、配送范围校验（外部HTTP调用）、购物车查询在事务外完成，
+     * 事务内只包含订单、订单明细的写入和购物车清理，避免数据库连接被第三方接口长时间占用
      */
-    @Transactional
     public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
         //异常情况的处理（收货地址为空、购物车为空）
         AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
@@ -79,15 +97,11 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 查询当前用户的收货地址是否超出配送范围
-        checkOutOfRange(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
-
-        // 查询当前用户的购物车数据
-        Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = new ShoppingCart();
-        shoppingCart.setUserId(userId);
+        checkOutOfRange(addressBook);
 
         //查询当前用户的购物车数据
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        Long userId = BaseContext.getCurrentId();
+        List<ShoppingCart> shoppingCartList = cartStore.list(userId);
         if (shoppingCartList == null || shoppingCartList.isEmpty()) {
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
@@ -98,29 +112,22 @@ public class OrderServiceImpl implements OrderService {
         order.setPhone(addressBook.getPhone());
         order.setAddress(addressBook.getDetail());
         order.setConsignee(addressBook.getConsignee());
-        order.setNumber(String.valueOf(System.currentTimeMillis()));
+        order.setNumber(String.valueOf(orderNumberGenerator.nextId()));
         order.setUserId(userId);
         order.setStatus(Orders.PENDING_PAYMENT);
         order.setPayStatus(Orders.UN_PAID);
         order.setOrderTime(LocalDateTime.now());
 
-        //向订单表插入1条数据
-        orderMapper.insert(order);
-
         //订单明细数据
         List<OrderDetail> orderDetailList = new ArrayList<>();
         for (ShoppingCart cart : shoppingCartList) {
             OrderDetail orderDetail = new OrderDetail();
             BeanUtils.copyProperties(cart, orderDetail);
-            orderDetail.setOrderId(order.getId());
             orderDetailList.add(orderDetail);
         }
 
-        //向明细表插入n条数据
-        orderDetailMapper.insertBatch(orderDetailList);
-
-        //清理购物车中的数据
-        shoppingCartMapper.deleteByUserId(userId);
+        //写入订单数据
+        transactionTemplate.executeWithoutResult(status -> saveOrder(order, orderDetailList, userId));
 
         //封装返回结果
         return OrderSubmitVO.builder()
@@ -131,6 +138,30 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
+    /**
+     * 下单的写入阶段，需在事务中执行
+     */
+    private void saveOrder(Orders order, List<OrderDetail> orderDetailList, Long userId) {
+        //向订单表插入1条数据
+        orderMapper.insert(order);
+        orderEventBus.publish(OrderEvent.builder()
+                .type(OrderEvent.CREATED)
+                .orderId(order.getId())
+                .orderNumber(order.getNumber())
+                .toStatus(order.getStatus())
+                .build());
+
+        //向明细表插入n条数据
+        orderDetailList.forEach(orderDetail -> orderDetail.setOrderId(order.getId()));
+        orderDetailMapper.insertBatch(orderDetailList);
+
+        //写入订单号、手机号的搜索索引
+        orderSearchIndex.index(order);
+
+        //清理购物车中的数据
+        cartStore.clear(userId);
+    }
+
     /**
      * 订单支付
      */
@@ -181,21 +212,13 @@ public class OrderServiceImpl implements OrderService {
         // 根据订单id更新订单的状态、支付方式、支付状态、结账时间
         Orders orders = Orders.builder()
                 .id(ordersDB.getId())
-                .status(Orders.TO_BE_CONFIRMED)
+                .number(ordersDB.getNumber())
                 .payStatus(Orders.PAID)
                 .checkoutTime(LocalDateTime.now())
                 .build();
 
-        orderMapper.update(orders);
-
-        // 通过WebSocket向客户端浏览器推送消息 [type orderId content]
-        Map<String, Object> map = new HashMap<>();
-        map.put("type", 1); //1:来电提醒 2:客户催单
-        map.put("orderId", ordersDB.getId());
-        map.put("content", "订单号：" + outTradeNo);
-
-        String json = JSON.toJSONString(map);
-        webSocketServer.sendToAllClient(json);
+        // 订单已不是待付款状态（重复的支付通知）时不再处理；来单提醒由订单事件异步推送
+        orderStateMachine.tryFire(OrderTransition.PAY, orders, null);
     }
 
     /**
@@ -216,15 +239,12 @@ public class OrderServiceImpl implements OrderService {
 
         // 查询出订单明细，并封装入OrderVO进行响应
         if (page != null && page.getTotal() > 0) {
+            // 一次查询出当前页所有订单的明细
+            Map<Long, List<OrderDetail>> detailMap = getDetailMap(page);
             for (Orders orders : page) {
-                Long orderId = orders.getId();// 订单id
-
-                // 查询订单明细
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderId);
-
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                orderVO.setOrderDetailList(orderDetails);
+                orderVO.setOrderDetailList(detailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 list.add(orderVO);
             }
@@ -235,6 +255,49 @@ public class OrderServiceImpl implements OrderService {
         return new PageResult<>(0, list);
     }
 
+    /**
+     * 用户端历史订单游标分页查询
+     * 游标为上一页最后一条订单的（下单时间, id），按索引定位后直接读取下一页，不查询总数，翻页深度不影响查询成本
+     */
+    public CursorPageResult<OrderVO> cursorQuery4User(String cursor, int pageSize, Integer status) {
+        int size = Math.max(1, Math.min(pageSize, MAX_CURSOR_PAGE_SIZE));
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                cursorTime = LocalDateTime.parse(parts[0]);
+                cursorId = Long.valueOf(parts[1]);
+            } catch (RuntimeException e) {
+                throw new OrderBusinessException(MessageConstant.CURSOR_INVALID);
+            }
+        }
+
+        // 多查询一条，用于判断是否还有下一页
+        List<Orders> ordersList = orderMapper.cursorQuery4User(BaseContext.getCurrentId(), status, cursorTime, cursorId, size + 1);
+        boolean hasMore = ordersList.size() > size;
+        if (hasMore) {
+            ordersList = ordersList.subList(0, size);
+        }
+
+        Map<Long, List<OrderDetail>> detailMap = getDetailMap(ordersList);
+        List<OrderVO> list = new ArrayList<>(ordersList.size());
+        for (Orders orders : ordersList) {
+            OrderVO orderVO = new OrderVO();
+            BeanUtils.copyProperties(orders, orderVO);
+            orderVO.setOrderDetailList(detailMap.getOrDefault(orders.getId(), new ArrayList<>()));
+            list.add(orderVO);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Orders last = ordersList.get(ordersList.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getOrderTime() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new CursorPageResult<>(list, nextCursor, hasMore);
+    }
+
     /**
      * 查询订单详情
      */
@@ -257,40 +320,28 @@ public class OrderServiceImpl implements OrderService {
      * 用户取消订单
      */
     public void userCancelById(Long id) {
-        // 根据id查询订单
-        Orders ordersDB = orderMapper.getById(id);
-
-        // 校验订单是否存在
-        if (ordersDB == null) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-
-        //订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
-        if (ordersDB.getStatus() > 2) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
+        // 更新订单状态、取消原因、取消时间，只有待付款、待接单的订单可以取消
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-
-        // 订单处于待接单状态下取消，需要进行退款
-        if (ordersDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
-//            //调用微信支付退款接口
-//            WeChatPayUtil.refund(
-//                    ordersDB.getNumber(), //商户订单号
-//                    ordersDB.getNumber(), //商户退款单号
-//                    new BigDecimal(0.01),//退款金额，单位 元
-//                    new BigDecimal(0.01));//原订单金额
-
-            //支付状态修改为 退款
-            orders.setPayStatus(Orders.REFUND);
-        }
-
-        // 更新订单状态、取消原因、取消时间
-        orders.setStatus(Orders.CANCELLED);
+        orders.setId(id);
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
-        orderMapper.update(orders);
+
+        orderStateMachine.fire(OrderTransition.USER_CANCEL, orders, (from, o) -> {
+            // 订单处于待接单状态下取消，需要进行退款
+            if (from.equals(Orders.TO_BE_CONFIRMED)) {
+//                //调用微信支付退款接口
+//                WeChatPayUtil.refund(
+//                        ordersDB.getNumber(), //商户订单号
+//                        ordersDB.getNumber(), //商户退款单号
+//                        new BigDecimal(0.01),//退款金额，单位 元
+//                        new BigDecimal(0.01));//原订单金额
+
+                //支付状态修改为 退款
+                o.setPayStatus(Orders.REFUND);
+            } else {
+                o.setPayStatus(null);
+            }
+        });
     }
 
     /**
@@ -315,8 +366,8 @@ public class OrderServiceImpl implements OrderService {
             return shoppingCart;
         }).collect(Collectors.toList());
 
-        // 将购物车对象批量添加到数据库
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        // 将购物车对象批量添加到购物车
+        cartStore.insertBatch(shoppingCartList);
     }
 
     /**
@@ -331,22 +382,31 @@ public class OrderServiceImpl implements OrderService {
             throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
         }
 
-        Map<String, Object> map = new HashMap<>();
-        map.put("type", 2); //1:来电提醒 2:客户催单
-        map.put("orderId", id);
-        map.put("content", "订单号：" + ordersDB.getNumber());
-
-        // 通过WebSocket将催单消息发送给客户端
-        String json = JSON.toJSONString(map);
-        webSocketServer.sendToAllClient(json);
+        // 发布催单事件，由订阅者异步通过WebSocket将催单消息发送给客户端
+        orderEventBus.publish(OrderEvent.builder()
+                .type(OrderEvent.REMINDER)
+                .orderId(id)
+                .orderNumber(ordersDB.getNumber())
+                .build());
     }
 
     /**
      * 管理端-条件搜索订单
      */
     public PageResult<OrderVO> conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
+        // 订单号、手机号关键字长度足够时通过n-gram索引查询，避免 like '%关键字%' 全表扫描
+        List<String> numberGrams = NGramUtil.grams(ordersPageQueryDTO.getNumber());
+        List<String> phoneGrams = NGramUtil.grams(ordersPageQueryDTO.getPhone());
+        // 存量订单尚未开始补建索引（或无法读取补建进度）时不能使用索引
+        Long unindexedBelow = numberGrams.isEmpty() && phoneGrams.isEmpty() ? null : orderSearchIndex.unindexedBelow();
+
         PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
-        Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
+        Page<Orders> page;
+        if (unindexedBelow == null) {
+            page = orderMapper.pageQuery(ordersPageQueryDTO);
+        } else {
+            page = orderMapper.searchQuery(ordersPageQueryDTO, numberGrams, phoneGrams, unindexedBelow > 0 ? unindexedBelow : null);
+        }
 
         // 部分订单状态，需要额外返回订单菜品信息，将Orders转化为OrderVO
         List<OrderVO> orderVOList = getOrderVOList(page);
@@ -360,11 +420,13 @@ public class OrderServiceImpl implements OrderService {
 
         List<Orders> ordersList = page.getResult();
         if (CollectionUtils.isNotEmpty(ordersList)) {
+            // 一次查询出当前页所有订单的明细
+            Map<Long, List<OrderDetail>> detailMap = getDetailMap(ordersList);
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(detailMap.get(orders.getId()));
 
                 // 将订单菜品信息封装到orderVO中，并添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -375,27 +437,44 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 根据订单id获取菜品信息字符串
+     * 批量查询订单明细，按订单id分组
      */
-    private String getOrderDishesStr(Orders orders) {
-        // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
+    private Map<Long, List<OrderDetail>> getDetailMap(List<Orders> ordersList) {
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        Map<Long, List<OrderDetail>> detailMap = new HashMap<>(orderIds.size() * 2);
+        if (orderIds.isEmpty()) {
+            return detailMap;
+        }
+        for (OrderDetail orderDetail : orderDetailMapper.getByOrderIds(orderIds)) {
+            detailMap.computeIfAbsent(orderDetail.getOrderId(), k -> new ArrayList<>()).add(orderDetail);
+        }
+        return detailMap;
+    }
 
+    /**
+     * 根据订单明细获取菜品信息字符串
+     */
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
+        if (orderDetailList == null) {
+            return "";
+        }
         // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
-        List<String> orderDishList = orderDetailList.stream().map(x -> x.getName() + "*" + x.getNumber() + ";").collect(Collectors.toList());
-
-        // 将该订单对应的所有菜品信息拼接在一起
-        return String.join("", orderDishList);
+        StringBuilder orderDishes = new StringBuilder(orderDetailList.size() * 16);
+        for (OrderDetail orderDetail : orderDetailList) {
+            orderDishes.append(orderDetail.getName()).append('*').append(orderDetail.getNumber()).append(';');
+        }
+        return orderDishes.toString();
     }
 
     /**
      * 管理端-各个状态的订单数量统计
      */
     public OrderStatisticsVO statistics() {
-        // 根据状态，分别查询出待接单、待派送、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        // 从计数器读取待接单、待派送、派送中的订单数量
+        Map<Integer, Integer> counts = orderStatusCounter.counts();
+        Integer toBeConfirmed = counts.get(Orders.TO_BE_CONFIRMED);
+        Integer confirmed = counts.get(Orders.CONFIRMED);
+        Integer deliveryInProgress = counts.get(Orders.DELIVERY_IN_PROGRESS);
 
         // 将查询出的数据封装到orderStatisticsVO中响应
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
@@ -409,58 +488,50 @@ public class OrderServiceImpl implements OrderService {
      * 管理端-接单
      */
     public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
+        // 只有待接单的订单可以接单
         Orders orders = Orders.builder()
                 .id(ordersConfirmDTO.getId())
-                .status(Orders.CONFIRMED)
                 .build();
 
-        orderMapper.update(orders);
+        orderStateMachine.fire(OrderTransition.CONFIRM, orders);
     }
 
     /**
      * 管理端-拒单
      */
     public void rejection(OrdersRejectionDTO ordersRejectionDTO) {
-        // 根据id查询订单
-        Orders ordersDB = orderMapper.getById(ordersRejectionDTO.getId());
-
-        // 订单只有存在且状态为2（待接单）才可以拒单
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
-        //支付状态
-        Integer payStatus = ordersDB.getPayStatus();
-        if (Objects.equals(payStatus, Orders.PAID)) {
-//            //用户已支付，需要退款
-//            String refund = weChatPayUtil.refund(
-//                    ordersDB.getNumber(),
-//                    ordersDB.getNumber(),
-//                    new BigDecimal(0.01),
-//                    new BigDecimal(0.01));
-            log.info("当前店铺已拒单，用户退款成功");
-        }
-
-        // 拒单需要退款，根据订单id更新订单状态、拒单原因、取消时间
+        // 拒单需要退款，根据订单id更新订单状态、拒单原因、取消时间，只有待接单的订单可以拒单
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-        orders.setStatus(Orders.CANCELLED);
+        orders.setId(ordersRejectionDTO.getId());
         orders.setRejectionReason(ordersRejectionDTO.getRejectionReason());
         orders.setCancelTime(LocalDateTime.now());
 
-        orderMapper.update(orders);
+        orderStateMachine.fire(OrderTransition.REJECT, orders);
+
+        // 待接单的订单均已支付
+//        //用户已支付，需要退款
+//        String refund = weChatPayUtil.refund(
+//                ordersDB.getNumber(),
+//                ordersDB.getNumber(),
+//                new BigDecimal(0.01),
+//                new BigDecimal(0.01));
+        log.info("当前店铺已拒单，用户退款成功");
     }
 
     /**
      * 管理端-取消订单
      */
     public void cancel(OrdersCancelDTO ordersCancelDTO) {
-        // 根据id查询订单
-        Orders ordersDB = orderMapper.getById(ordersCancelDTO.getId());
+        // 管理端取消订单需要退款，根据订单id更新订单状态、取消原因、取消时间
+        Orders orders = new Orders();
+        orders.setId(ordersCancelDTO.getId());
+        orders.setCancelReason(ordersCancelDTO.getCancelReason());
+        orders.setCancelTime(LocalDateTime.now());
 
-        //支付状态
-        Integer payStatus = ordersDB.getPayStatus();
-        if (payStatus == 1) {
+        Integer from = orderStateMachine.fire(OrderTransition.ADMIN_CANCEL, orders);
+
+        // 待付款以外的订单均已支付
+        if (!from.equals(Orders.PENDING_PAYMENT)) {
 //            //用户已支付，需要退款
 //            String refund = weChatPayUtil.refund(
 //                    ordersDB.getNumber(),
@@ -469,143 +540,58 @@ public class OrderServiceImpl implements OrderService {
 //                    new BigDecimal(0.01));
             log.info("当前订单已取消，申请退款成功");
         }
-
-        // 管理端取消订单需要退款，根据订单id更新订单状态、取消原因、取消时间
-        Orders orders = new Orders();
-        orders.setId(ordersCancelDTO.getId());
-        orders.setStatus(Orders.CANCELLED);
-        orders.setCancelReason(ordersCancelDTO.getCancelReason());
-        orders.setCancelTime(LocalDateTime.now());
-        orderMapper.update(orders);
     }
 
     /**
      * 管理端-派送订单
      */
     public void delivery(Long id) {
-        // 根据id查询订单
-        Orders ordersDB = orderMapper.getById(id);
-
-        // 校验订单是否存在，并且状态为3
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.CONFIRMED)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
+        // 更新订单状态,状态转为派送中，只有已接单的订单可以派送
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-        // 更新订单状态,状态转为派送中
-        orders.setStatus(Orders.DELIVERY_IN_PROGRESS);
+        orders.setId(id);
 
-        orderMapper.update(orders);
+        orderStateMachine.fire(OrderTransition.DELIVER, orders);
     }
 
     /**
      * 管理端-完成订单
      */
     public void complete(Long id) {
-        // 根据id查询订单
-        Orders ordersDB = orderMapper.getById(id);
-
-        // 校验订单是否存在，并且状态为4
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
+        // 更新订单状态,状态转为完成，只有派送中的订单可以完成
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-        // 更新订单状态,状态转为完成
-        orders.setStatus(Orders.COMPLETED);
+        orders.setId(id);
         orders.setDeliveryTime(LocalDateTime.now());
 
-        orderMapper.update(orders);
+        orderStateMachine.fire(OrderTransition.COMPLETE, orders);
     }
 
     /**
      * 检查客户的收货地址是否超出配送范围
+     * 地址已解析过坐标时直接使用保存的配送距离，尚未解析时先通过配送范围网格判断，
+     * 只有处于边界网格的地址才调用路线规划计算驾车距离
      */
-    private void checkOutOfRange(String address) {
-        // 1. 获取店铺坐标
-        Map<String, String> shopParams = new HashMap<>();
-        shopParams.put("address", shopAddress); // shopAddress应为预定义的店铺地址
-        shopParams.put("output", "json");
-        shopParams.put("ak", ak); // ak是百度地图服务端AK
-
-        String shopResponse = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", shopParams);
-        JSONObject shopJson = JSON.parseObject(shopResponse);
-
-        // 店铺地址解析校验
-        if (!"0".equals(shopJson.getString("status"))) {
-            log.error("店铺地址解析失败，响应: {}", shopResponse);
-            throw new OrderBusinessException("店铺地址解析失败，状态码：" + shopJson.getString("status"));
-        }
-
-        // 提取店铺坐标
-        JSONObject shopLocation = shopJson.getJSONObject("result").getJSONObject("location");
-        Double shopLng = shopLocation.getDouble("lng");
-        Double shopLat = shopLocation.getDouble("lat");
-        String shopLngLat = String.format("%.6f,%.6f", shopLng, shopLat);
-
-        // 2. 获取用户坐标（使用独立参数对象）
-        Map<String, String> userParams = new HashMap<>();
-        userParams.put("address", address); // 用户传入的地址
-        userParams.put("output", "json");
-        userParams.put("ak", ak);
-
-        String userResponse = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", userParams);
-        JSONObject userJson = JSON.parseObject(userResponse);
-
-        // 用户地址解析校验
-        if (!"0".equals(userJson.getString("status"))) {
-            log.error("用户地址解析失败，响应: {}", userResponse);
-            throw new OrderBusinessException("收货地址解析失败，状态码：" + userJson.getString("status"));
-        }
-
-        // 提取用户坐标
-        JSONObject userLocation = userJson.getJSONObject("result").getJSONObject("location");
-        Double userLng = userLocation.getDouble("lng");
-        Double userLat = userLocation.getDouble("lat");
-        String userLngLat = String.format("%.6f,%.6f", userLng, userLat);
-
-        log.info("路线规划请求参数: origin={}, destination={}", shopLngLat, userLngLat);
-
-        // 3. 路线规划（使用独立参数对象）
-        Map<String, String> routeParams = new HashMap<>();
-        routeParams.put("origin", shopLngLat);
-        routeParams.put("destination", userLngLat);
-        routeParams.put("ak", ak);
-        routeParams.put("steps_info", "0"); // 不返回详细路径信息
-        routeParams.put("coord_type", "bd09ll"); // 明确指定坐标系
-
-        String routeResponse = HttpClientUtil.doGet("https://api.map.baidu.com/directionlite/v1/driving", routeParams);
-        JSONObject routeJson = JSON.parseObject(routeResponse);
-
-        if (!"0".equals(routeJson.getString("status"))) {
-            String debugUrl = "https://api.map.baidu.com/directionlite/v1/driving" +
-                    "?origin=" + URLEncoder.encode(shopLngLat, StandardCharsets.UTF_8) +
-                    "&destination=" + URLEncoder.encode(userLngLat, StandardCharsets.UTF_8) +
-                    "&ak=" + ak +
-                    "&steps_info=0" +
-                    "&coord_type=bd09ll";
-
-            log.error("路线规划失败，完整请求URL: {}", debugUrl);
-            log.error("失败响应: {}", routeResponse);
-            throw new OrderBusinessException("配送路线规划失败，状态码：" + routeJson.getString("status"));
-        }
-
-        // 4. 解析距离（关键修复点）
-        JSONObject result = routeJson.getJSONObject("result");
-        JSONArray routes = result.getJSONArray("routes");
-        if (routes == null || routes.isEmpty()) {
-            throw new OrderBusinessException("无有效路线数据");
+    private void checkOutOfRange(AddressBook addressBook) {
+        Integer distance = addressBook.getDistance();
+        if (addressBook.getDeliverable() == null || distance == null) {
+            // 获取用户坐标（优先读取缓存）
+            GeoPointDTO userLocation = geoService.geocode(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
+
+            byte zone = geoService.locateDeliveryZone(userLocation);
+            if (zone == DeliveryZoneGrid.INSIDE) {
+                return;
+            }
+            if (zone == DeliveryZoneGrid.OUTSIDE) {
+                log.error("超出配送范围：{}", userLocation.toLngLat());
+                throw new OrderBusinessException("超出配送范围");
+            }
+            distance = geoService.getDrivingDistance(userLocation);
         }
 
-        JSONObject firstRoute = routes.getJSONObject(0);
-        Integer distance = firstRoute.getInteger("distance"); // 确认单位为米
-
-        // 5. 距离判断（必须抛出异常！）
+        // 距离判断（必须抛出异常！）
+        int deliveryRadius = geoProperties.getDeliveryRadius();
         log.info("配送距离计算：{}米", distance);
-        if (distance > 5000) {
-            log.error("超出配送范围：{}米 > 5000米", distance);
+        if (distance > deliveryRadius) {
+            log.error("超出配送范围：{}米 > {}米", distance, deliveryRadius);
             throw new OrderBusinessException("超出配送范围（" + distance + "米）"); // 中断订单提交
         }
     }
@@ -2,6 +2,7 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.catalog.CatalogManager;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.SetmealDTO;
@@ -21,6 +22,7 @@ import com.sky.vo.SetmealVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,12 +36,15 @@ public class SetmealServiceImpl implements SetmealService {
     private final SetmealMapper setmealMapper;
     private final SetmealDishMapper setmealDishMapper;
     private final DishMapper dishMapper;
+    private final CatalogManager catalogManager;
 
     @Autowired
-    public SetmealServiceImpl(SetmealMapper setmealMapper, SetmealDishMapper setmealDishMapper, DishMapper dishMapper) {
+    public SetmealServiceImpl(SetmealMapper setmealMapper, SetmealDishMapper setmealDishMapper, DishMapper dishMapper,
+                              CatalogManager catalogManager) {
         this.setmealMapper = setmealMapper;
         this.setmealDishMapper = setmealDishMapper;
         this.dishMapper = dishMapper;
+        this.catalogManager = catalogManager;
     }
 
     /**
@@ -61,6 +66,9 @@ public class SetmealServiceImpl implements SetmealService {
 
         //保存套餐和菜品的关联关系
         setmealDishMapper.insertBatch(setmealDishes);
+
+        //事务提交后重建C端菜单快照
+        catalogManager.refresh();
     }
 
     /**
@@ -91,6 +99,7 @@ public class SetmealServiceImpl implements SetmealService {
             //删除套餐菜品关系表中的数据
             setmealDishMapper.deleteBySetmealId(setmealId);
         });
+        catalogManager.refresh();
     }
 
     /**
@@ -134,6 +143,7 @@ public class SetmealServiceImpl implements SetmealService {
             } else {
                 log.warn("未发现任何菜品关联关系，跳过插入操作。套餐ID: {}", setmealId);
             }
+            catalogManager.refresh();
         } catch (Exception e) {
             log.error("更新套餐失败，事务已回滚。错误信息: {}", e.getMessage(), e);
             throw e; // 将异常抛出，确保调用方知晓失败原因
@@ -161,11 +171,13 @@ public class SetmealServiceImpl implements SetmealService {
                 .status(status)
                 .build();
         setmealMapper.update(setmeal);
+        catalogManager.refresh();
     }
 
     /**
-     * C端-条件查询
+     * C端-条件查询（菜单快照不可用时使用）
      */
+    @Cacheable(cacheNames = "setmealCache", key = "#setmeal.categoryId")
     public List<Setmeal> list(Setmeal setmeal) {
         return setmealMapper.list(setmeal);
     }
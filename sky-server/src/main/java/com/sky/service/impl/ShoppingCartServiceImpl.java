@@ -1,5 +1,6 @@
 package com.sky.service.impl;
 
+import com.sky.cart.CartStore;
 import com.sky.context.BaseContext;
 import com.sky.dto.ShoppingCartDTO;
 import com.sky.entity.Dish;
@@ -7,7 +8,6 @@ import com.sky.entity.Setmeal;
 import com.sky.entity.ShoppingCart;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
 import com.sky.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -21,13 +21,13 @@ import java.util.List;
 @Service
 public class ShoppingCartServiceImpl implements ShoppingCartService {
 
-    private final ShoppingCartMapper shoppingCartMapper;
+    private final CartStore cartStore;
     private final DishMapper dishMapper;
     private final SetmealMapper setmealMapper;
 
     @Autowired
-    public ShoppingCartServiceImpl(ShoppingCartMapper shoppingCartMapper, DishMapper dishMapper, SetmealMapper setmealMapper) {
-        this.shoppingCartMapper = shoppingCartMapper;
+    public ShoppingCartServiceImpl(CartStore cartStore, DishMapper dishMapper, SetmealMapper setmealMapper) {
+        this.cartStore = cartStore;
         this.dishMapper = dishMapper;
         this.setmealMapper = setmealMapper;
     }
@@ -41,14 +41,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         Long userId = BaseContext.getCurrentId();
         shoppingCart.setUserId(userId);
 
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-
-        // 判断当前菜品或套餐是否在购物车中
-        if (list != null && !list.isEmpty()) {
-            ShoppingCart cart = list.get(0);
-            cart.setNumber(cart.getNumber() + 1);
-            shoppingCartMapper.updateNumberById(cart);
-        } else {
+        // 判断当前菜品或套餐是否在购物车中，已存在时数量加1
+        if (cartStore.increment(shoppingCart) == 0) {
             // 正确获取菜品ID和套餐ID
             Long dishId = shoppingCartDTO.getDishId();
             Long setmealId = shoppingCartDTO.getSetmealId();
@@ -72,7 +66,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
             shoppingCart.setNumber(1);
             shoppingCart.setCreateTime(LocalDateTime.now());
-            shoppingCartMapper.insert(shoppingCart);
+            cartStore.insert(shoppingCart);
         }
     }
 
@@ -82,8 +76,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     public List<ShoppingCart> showShoppingCart() {
         // 获取当前用户ID
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = ShoppingCart.builder().userId(userId).build();
-        return shoppingCartMapper.list(shoppingCart);
+        return cartStore.list(userId);
     }
 
     /**
@@ -101,7 +94,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
         try {
             // 调用数据库删除操作
-            shoppingCartMapper.deleteByUserId(userId);
+            cartStore.clear(userId);
 
             // 记录成功日志
             log.info("清空购物车成功，用户ID: {}", userId);
@@ -123,20 +116,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         //设置查询条件，查询当前登录用户的购物车数据
         shoppingCart.setUserId(BaseContext.getCurrentId());
 
-        List<ShoppingCart> list = shoppingCartMapper.list(shoppingCart);
-
-        if(list != null && !list.isEmpty()){
-            shoppingCart = list.get(0);
-
-            Integer number = shoppingCart.getNumber();
-            if(number == 1){
-                //当前商品在购物车中的份数为1，直接删除当前记录
-                shoppingCartMapper.deleteById(shoppingCart.getId());
-            }else {
-                //当前商品在购物车中的份数不为1，修改份数即可
-                shoppingCart.setNumber(shoppingCart.getNumber() - 1);
-                shoppingCartMapper.updateNumberById(shoppingCart);
-            }
-        }
+        //数量减1，份数为1时直接删除当前记录
+        cartStore.decrement(shoppingCart);
     }
 }
\ No newline at end of file
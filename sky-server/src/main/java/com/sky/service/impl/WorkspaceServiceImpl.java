@@ -9,6 +9,7 @@ import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.order.OrderStatusCounter;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -17,6 +18,7 @@ import com.sky.vo.SetmealOverViewVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Service
 public class WorkspaceServiceImpl implements WorkspaceService {
@@ -25,13 +27,15 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     private final UserMapper userMapper;
     private final DishMapper dishMapper;
     private final SetmealMapper setmealMapper;
+    private final OrderStatusCounter orderStatusCounter;
 
     @Autowired
-    public WorkspaceServiceImpl(OrderMapper orderMapper, UserMapper userMapper, DishMapper dishMapper, SetmealMapper setmealMapper) {
+    public WorkspaceServiceImpl(OrderMapper orderMapper, UserMapper userMapper, DishMapper dishMapper, SetmealMapper setmealMapper, OrderStatusCounter orderStatusCounter) {
         this.orderMapper = orderMapper;
         this.userMapper = userMapper;
         this.dishMapper = dishMapper;
         this.setmealMapper = setmealMapper;
+        this.orderStatusCounter = orderStatusCounter;
     }
 
     /**
@@ -80,16 +84,18 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      * 查询订单管理数据
      */
     public OrderOverViewVO getOrderOverView() {
+        // 从计数器读取各状态的订单数量
+        Map<Integer, Integer> counts = orderStatusCounter.counts();
         //待接单数量
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
+        Integer toBeConfirmed = counts.get(Orders.TO_BE_CONFIRMED);
         //待派送数量
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        Integer deliveryInProgress = counts.get(Orders.DELIVERY_IN_PROGRESS);
         //已完成数量
-        Integer completed = orderMapper.countStatus(Orders.COMPLETED);
+        Integer completed = counts.get(Orders.COMPLETED);
         //已取消数量
-        Integer cancelled = orderMapper.countStatus(Orders.CANCELLED);
+        Integer cancelled = counts.get(Orders.CANCELLED);
         //全部订单数
-        Integer allOrders = orderMapper.countStatus(null);
+        Integer allOrders = counts.get(OrderStatusCounter.ALL);
 
         return OrderOverViewVO.builder()
                 .waitingOrders(toBeConfirmed)
@@ -0,0 +1,88 @@
+package com.sky.task;
+
+import com.sky.annotation.ClusterJob;
+import com.sky.dto.GeoPointDTO;
+import com.sky.entity.AddressBook;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.properties.GeoProperties;
+import com.sky.service.GeoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 地址坐标解析任务：新增/修改地址后异步解析，定时补全存量地址
+ */
+@Slf4j
+@Component
+public class AddressGeoTask {
+
+    private final AddressBookMapper addressBookMapper;
+    private final GeoService geoService;
+    private final GeoProperties geoProperties;
+
+    // 补全任务的分批游标，一轮处理完后从头开始
+    private long lastId = 0;
+
+    @Autowired
+    public AddressGeoTask(AddressBookMapper addressBookMapper, GeoService geoService, GeoProperties geoProperties) {
+        this.addressBookMapper = addressBookMapper;
+        this.geoService = geoService;
+        this.geoProperties = geoProperties;
+    }
+
+    /**
+     * 异步解析指定地址的坐标和配送距离
+     */
+    @Async
+    public void resolveAsync(Long id) {
+        AddressBook addressBook = addressBookMapper.getById(id);
+        if (addressBook != null) {
+            resolve(addressBook);
+        }
+    }
+
+    /**
+     * 补全尚未解析坐标的存量地址
+     */
+    @Scheduled(cron = "0 0/10 * * * ?") // 每10分钟执行一次
+    @ClusterJob("addressGeo:backfill")
+    public void backfill() {
+        List<AddressBook> list = addressBookMapper.listPendingGeo(lastId, geoProperties.getBackfillBatchSize());
+        if (list.size() < geoProperties.getBackfillBatchSize()) {
+            lastId = 0;
+        } else {
+            lastId = list.get(list.size() - 1).getId();
+        }
+        if (!list.isEmpty()) {
+            log.info("补全地址坐标：{}条", list.size());
+            list.forEach(this::resolve);
+        }
+    }
+
+    private void resolve(AddressBook addressBook) {
+        try {
+            GeoPointDTO location = geoService.geocode(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
+            int distance = geoService.getDrivingDistance(location);
+
+            // 带上解析时的地址文本，地址已被修改时不会写入
+            AddressBook geo = AddressBook.builder()
+                    .id(addressBook.getId())
+                    .cityName(addressBook.getCityName())
+                    .districtName(addressBook.getDistrictName())
+                    .detail(addressBook.getDetail())
+                    .lng(location.getLng())
+                    .lat(location.getLat())
+                    .distance(distance)
+                    .deliverable(distance <= geoProperties.getDeliveryRadius() ? 1 : 0)
+                    .build();
+            addressBookMapper.updateGeo(geo);
+        } catch (Exception e) {
+            log.warn("地址坐标解析失败，地址id: {}，错误信息: {}", addressBook.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sky.task;
+
+import com.sky.cart.RedisCartStore;
+import com.sky.properties.CartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 定时任务类，将Redis中有变更的购物车回写MySQL
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "sky.cart", name = "store", havingValue = "redis")
+public class CartWriteBehindTask {
+
+    private final RedisCartStore redisCartStore;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CartProperties cartProperties;
+
+    @Autowired
+    public CartWriteBehindTask(RedisCartStore redisCartStore, StringRedisTemplate stringRedisTemplate,
+                               TransactionTemplate transactionTemplate, CartProperties cartProperties) {
+        this.redisCartStore = redisCartStore;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cartProperties = cartProperties;
+    }
+
+    /**
+     * 回写有变更的购物车
+     */
+    @Scheduled(fixedDelay = 10000) // 每10秒执行一次
+    public void flush() {
+        List<String> userIds = stringRedisTemplate.opsForSet().pop(RedisCartStore.DIRTY_KEY, cartProperties.getFlushBatchSize());
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        for (String userId : userIds) {
+            try {
+                Boolean flushed = transactionTemplate.execute(status -> redisCartStore.flush(Long.valueOf(userId)));
+                if (!Boolean.TRUE.equals(flushed)) {
+                    // 购物车正在清空，重新标记，清空完成后下次回写时购物车已删除
+                    stringRedisTemplate.opsForSet().add(RedisCartStore.DIRTY_KEY, userId);
+                }
+            } catch (Exception e) {
+                // 回写失败，重新标记，下次继续回写
+                log.error("购物车回写失败，用户id: {}，错误信息: {}", userId, e.getMessage());
+                stringRedisTemplate.opsForSet().add(RedisCartStore.DIRTY_KEY, userId);
+            }
+        }
+        log.info("购物车回写MySQL：{}个用户", userIds.size());
+    }
+}
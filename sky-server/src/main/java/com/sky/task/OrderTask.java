@@ -1,56 +1,107 @@
 package com.sky.task;
 
+import com.sky.annotation.ClusterJob;
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.OrderTransition;
+import com.sky.properties.OrderProperties;
+import com.sky.scheduler.ClusterJobContext;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 定时任务类，用于处理订单状态
+ * 多节点部署时超时订单兜底任务只在取得锁的节点执行，派送中订单按订单id分片由各节点分别处理
  */
 @Slf4j
 @Component
 public class OrderTask {
     @Autowired
     private OrderMapper orderMapper;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderProperties orderProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 每批处理的订单数
+    private static final int BATCH_SIZE = 500;
 
     /**
      * 处理超时订单
+     * 超时订单由 OrderTimeoutTask 按超时队列准时取消，这里只兜底处理队列中丢失的订单（如节点重启前仅在本地时间轮中的订单）
      */
-    @Scheduled(cron = "0 0/3 * * * ?") // 每3分钟执行一次
+    @Scheduled(cron = "0 0/30 * * * ?") // 每30分钟执行一次
+    @ClusterJob("orderTask:timeout")
     public void processTimeoutOrder() {
         log.info("定时处理超时订单：{}", LocalDateTime.now());
-        // select * from orders where status = ? and order_time < (当前时间 - 15分钟)
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, LocalDateTime.now().plusMinutes(-15));
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders orders : ordersList) {
-                // 更新订单状态为已取消
-                orders.setStatus(Orders.CANCELLED);
-                orders.setCancelReason("订单超时，自动取消");
-                orders.setCancelTime(LocalDateTime.now());
-                orderMapper.update(orders);
-            }
-        }
+        // 更新订单状态为已取消，查询后已支付的订单不会被取消
+        Orders orders = new Orders();
+        orders.setCancelReason("订单超时，自动取消");
+        orders.setCancelTime(LocalDateTime.now());
+        // select id from orders where status = ? and order_time < (当前时间 - 支付超时时间)
+        int count = processInBatches(Orders.PENDING_PAYMENT, LocalDateTime.now().minus(orderProperties.getPaymentTimeout()),
+                OrderTransition.TIMEOUT_CANCEL, orders);
+        log.info("超时订单处理完成，取消{}个订单", count);
     }
 
     /**
      * 处理一直处于派送中的订单
      */
     @Scheduled(cron = "0 0 1 * * ?") // 每天凌晨1点执行一次
+    @ClusterJob(value = "orderTask:delivery", sharded = true)
     public void processDeliveryOrder() {
         log.info("定时处理处于派送中的订单：{}", LocalDateTime.now());
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, LocalDateTime.now().plusMinutes(-60));
-        if (ordersList != null && !ordersList.isEmpty()) {
-            for (Orders orders : ordersList) {
-                // 更新订单状态为已完成
-                orders.setStatus(Orders.COMPLETED);
-                orderMapper.update(orders);
+        // 更新订单状态为已完成
+        int count = processInBatches(Orders.DELIVERY_IN_PROGRESS, LocalDateTime.now().plusMinutes(-60),
+                OrderTransition.AUTO_COMPLETE, new Orders());
+        log.info("派送中订单处理完成，完成{}个订单", count);
+    }
+
+    /**
+     * 流式读取符合条件的订单id，每 BATCH_SIZE 个执行一次批量状态流转，返回流转成功的订单数量
+     * 游标需在事务中遍历，每批的修改在独立事务中提交；分片执行时只处理本节点分片的订单，
+     * 加锁执行时每批写入前确认锁仍被持有，租约过期后停止；写入事务中还会校验锁令牌（见 ClusterFence），
+     * 确认与写入之间租约过期、锁被其他节点取得时由数据库拒绝写入，避免与取得锁的其他节点重复处理
+     */
+    private int processInBatches(Integer status, LocalDateTime orderTime, OrderTransition transition, Orders orders) {
+        Integer count = transactionTemplate.execute(txStatus -> {
+            int affected = 0;
+            try (Cursor<Long> cursor = orderMapper.cursorIdsByStatusAndOrderTimeLT(status, orderTime,
+                    ClusterJobContext.shardIndex(), ClusterJobContext.shardTotal())) {
+                List<Long> ids = new ArrayList<>(BATCH_SIZE);
+                for (Long id : cursor) {
+                    ids.add(id);
+                    if (ids.size() == BATCH_SIZE) {
+                        if (!ClusterJobContext.isLockHeld()) {
+                            log.warn("定时任务锁已失效，停止处理");
+                            return affected;
+                        }
+                        affected += orderStateMachine.fireBatch(transition, ids, orders);
+                        ids.clear();
+                    }
+                }
+                if (!ids.isEmpty() && ClusterJobContext.isLockHeld()) {
+                    affected += orderStateMachine.fireBatch(transition, ids, orders);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        }
+            return affected;
+        });
+        return count == null ? 0 : count;
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.OrderTimeoutQueue;
+import com.sky.order.OrderTransition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 定时任务类，每秒取消超时队列中到期未支付的订单
+ */
+@Slf4j
+@Component
+public class OrderTimeoutTask {
+
+    private static final int BATCH_SIZE = 200;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+
+    private final OrderTimeoutQueue orderTimeoutQueue;
+    private final OrderStateMachine orderStateMachine;
+
+    @Autowired
+    public OrderTimeoutTask(OrderTimeoutQueue orderTimeoutQueue, OrderStateMachine orderStateMachine) {
+        this.orderTimeoutQueue = orderTimeoutQueue;
+        this.orderStateMachine = orderStateMachine;
+    }
+
+    @Scheduled(fixedDelay = 1000) // 每秒执行一次
+    public void cancelDueOrders() {
+        List<Long> orderIds = orderTimeoutQueue.pollDue(BATCH_SIZE);
+        for (Long orderId : orderIds) {
+            Orders orders = new Orders();
+            orders.setId(orderId);
+            orders.setCancelReason("订单超时，自动取消");
+            orders.setCancelTime(LocalDateTime.now());
+            try {
+                // 已支付的订单不会被取消
+                orderStateMachine.tryFire(OrderTransition.TIMEOUT_CANCEL, orders, null);
+            } catch (RuntimeException e) {
+                log.error("取消超时订单失败，稍后重试：orderId={}", orderId, e);
+                orderTimeoutQueue.retryLater(orderId, RETRY_DELAY);
+            }
+        }
+    }
+}
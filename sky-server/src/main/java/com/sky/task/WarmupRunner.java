@@ -0,0 +1,136 @@
+package com.sky.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.cache.MenuCache;
+import com.sky.catalog.CatalogManager;
+import com.sky.catalog.CatalogSnapshot;
+import com.sky.config.WebMvcConfiguration;
+import com.sky.constant.StatusConstant;
+import com.sky.controller.admin.ShopController;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.properties.SkyCacheProperties;
+import com.sky.result.Result;
+import com.sky.service.CategoryService;
+import com.sky.service.DishService;
+import com.sky.service.SetmealService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 启动预热：加载菜单快照、预加载各分类的菜品和套餐缓存、读取店铺状态，并重复执行热点请求的处理逻辑预热JIT
+ * Spring Boot 在所有 ApplicationRunner 执行完成后才将就绪状态设置为 ACCEPTING_TRAFFIC，
+ * 因此管理端口的 /actuator/health/readiness 在预热完成后才会返回 UP；预热耗时记录在指标 sky.warmup 中
+ * 预热失败只记录日志，不影响启动
+ */
+@Slf4j
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Integer DISH_CATEGORY = 1;
+    private static final Integer SETMEAL_CATEGORY = 2;
+
+    private final CatalogManager catalogManager;
+    private final MenuCache menuCache;
+    private final CategoryService categoryService;
+    private final DishService dishService;
+    private final SetmealService setmealService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SkyCacheProperties skyCacheProperties;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Duration lastDuration;
+
+    @Autowired
+    public WarmupRunner(CatalogManager catalogManager, MenuCache menuCache, CategoryService categoryService,
+                        DishService dishService, SetmealService setmealService,
+                        RedisTemplate<String, Object> redisTemplate, SkyCacheProperties skyCacheProperties,
+                        MeterRegistry meterRegistry) {
+        this.catalogManager = catalogManager;
+        this.menuCache = menuCache;
+        this.categoryService = categoryService;
+        this.dishService = dishService;
+        this.setmealService = setmealService;
+        this.redisTemplate = redisTemplate;
+        this.skyCacheProperties = skyCacheProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 最近一次预热耗时，未预热时为null
+     */
+    public Duration getLastDuration() {
+        return lastDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!skyCacheProperties.getWarmup().isEnabled()) {
+            return;
+        }
+        log.info("开始启动预热...");
+        long start = System.nanoTime();
+        try {
+            warmup();
+        } catch (Exception e) {
+            log.error("启动预热失败", e);
+        }
+        lastDuration = Duration.ofNanos(System.nanoTime() - start);
+        Timer.builder("sky.warmup")
+                .description("启动预热耗时")
+                .register(meterRegistry)
+                .record(lastDuration);
+        log.info("启动预热完成，耗时{}ms", lastDuration.toMillis());
+    }
+
+    private void warmup() {
+        // 1. 菜单快照
+        catalogManager.init();
+
+        // 2. 各分类的菜品、套餐缓存（快照不可用时的查询路径）
+        List<Category> categories = categoryService.list(null);
+        for (Category category : categories) {
+            Long categoryId = category.getId();
+            if (DISH_CATEGORY.equals(category.getType())) {
+                Dish dish = Dish.builder().categoryId(categoryId).status(StatusConstant.ENABLE).build();
+                menuCache.get(MenuCache.DISH, categoryId, () -> dishService.listWithFlavor(dish));
+            } else if (SETMEAL_CATEGORY.equals(category.getType())) {
+                setmealService.list(Setmeal.builder().categoryId(categoryId).status(StatusConstant.ENABLE).build());
+            }
+        }
+
+        // 3. 店铺状态，同时建立Redis连接
+        redisTemplate.opsForValue().get(ShopController.KEY);
+
+        // 4. 重复执行菜单查询和序列化，预热JIT
+        CatalogSnapshot snapshot = catalogManager.current();
+        if (snapshot == null) {
+            return;
+        }
+        ObjectMapper objectMapper = WebMvcConfiguration.createObjectMapper();
+        int iterations = skyCacheProperties.getWarmup().getJitIterations();
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (Category category : snapshot.categories(null)) {
+                Object data = DISH_CATEGORY.equals(category.getType())
+                        ? snapshot.dishes(category.getId()) : snapshot.setmeals(category.getId());
+                try {
+                    bytes += objectMapper.writeValueAsBytes(Result.success(data)).length;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        log.info("JIT预热完成：{}次，{}个分类，输出{}字节", iterations, snapshot.categories(null).size(), bytes);
+    }
+}
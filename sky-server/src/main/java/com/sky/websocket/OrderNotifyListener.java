@@ -0,0 +1,56 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.OrderEvent;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 订单事件订阅者：通过WebSocket向管理端推送来单提醒、客户催单
+ */
+@Component
+public class OrderNotifyListener implements OrderEventListener {
+
+    private final WebSocketServer webSocketServer;
+    private final OrderMapper orderMapper;
+
+    @Autowired
+    public OrderNotifyListener(WebSocketServer webSocketServer, OrderMapper orderMapper) {
+        this.webSocketServer = webSocketServer;
+        this.orderMapper = orderMapper;
+    }
+
+    @Override
+    public void onEvent(OrderEvent event) {
+        int type;
+        if (OrderEvent.STATUS_CHANGED.equals(event.getType())
+                && Orders.PENDING_PAYMENT.equals(event.getFromStatus())
+                && Orders.TO_BE_CONFIRMED.equals(event.getToStatus())) {
+            type = 1; // 支付成功，来单提醒
+        } else if (OrderEvent.REMINDER.equals(event.getType())) {
+            type = 2; // 客户催单
+        } else {
+            return;
+        }
+
+        String number = event.getOrderNumber();
+        if (number == null) {
+            Orders orders = orderMapper.getById(event.getOrderId());
+            number = orders == null ? "" : orders.getNumber();
+        }
+
+        // 通过WebSocket向客户端浏览器推送消息 [type orderId content]
+        Map<String, Object> map = new HashMap<>();
+        map.put("type", type); //1:来电提醒 2:客户催单
+        map.put("orderId", event.getOrderId());
+        map.put("content", "订单号：" + number);
+
+        webSocketServer.sendToAllClient(JSON.toJSONString(map));
+    }
+}
@@ -0,0 +1,228 @@
+package com.sky.aspect;
+
+import com.sky.annotation.ClusterJob;
+import com.sky.properties.SchedulerProperties;
+import com.sky.scheduler.ClusterJobContext;
+import com.sky.scheduler.ClusterNode;
+import com.sky.scheduler.MemoryClusterStore;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 集群定时任务的加锁与分片执行：多个节点共用一个 MemoryClusterStore
+ */
+class ClusterJobAspectTest {
+
+    private static final int NODES = 4;
+
+    private MemoryClusterStore clusterStore;
+    private List<ClusterNode> nodes;
+    private List<ClusterJobAspect> aspects;
+
+    @BeforeEach
+    void setUp() {
+        clusterStore = new MemoryClusterStore();
+        nodes = new ArrayList<>();
+        aspects = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ClusterNode node = new ClusterNode(clusterStore, new SchedulerProperties());
+            nodes.add(node);
+            aspects.add(new ClusterJobAspect(clusterStore, node));
+        }
+    }
+
+    /**
+     * 各节点同时触发同一任务，只有一个节点执行；最短持有时间内再次触发也不执行
+     */
+    @Test
+    void sameTriggerRunsOnce() throws Throwable {
+        ClusterJob clusterJob = annotation("lockedJob");
+        AtomicInteger runs = new AtomicInteger();
+        ProceedingJoinPoint joinPoint = joinPoint(() -> runs.incrementAndGet());
+
+        CyclicBarrier barrier = new CyclicBarrier(NODES);
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (ClusterJobAspect aspect : aspects) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    try {
+                        return aspect.around(joinPoint, clusterJob);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+
+        // 任务已执行完，但仍在最短持有时间内
+        for (ClusterJobAspect aspect : aspects) {
+            aspect.around(joinPoint, clusterJob);
+        }
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * 任务执行期间锁被持有，其他节点跳过；执行期间上下文中的锁有效，执行后清除
+     */
+    @Test
+    void runningJobHoldsLock() throws Throwable {
+        ClusterJob clusterJob = annotation("quickJob");
+        AtomicInteger runs = new AtomicInteger();
+        List<Long> tokens = new ArrayList<>();
+        ProceedingJoinPoint other = joinPoint(() -> runs.incrementAndGet());
+        ProceedingJoinPoint joinPoint = joinPoint(() -> {
+            runs.incrementAndGet();
+            assertTrue(ClusterJobContext.isLockHeld());
+            assertEquals("test:quick", ClusterJobContext.lockName());
+            tokens.add(ClusterJobContext.lockToken());
+            aspects.get(1).around(other, clusterJob);
+        });
+
+        aspects.get(0).around(joinPoint, clusterJob);
+        assertEquals(1, runs.get());
+        assertNull(ClusterJobContext.lockToken());
+
+        // 最短持有时间为0，执行完立即释放，下一次触发由任一节点执行，令牌递增
+        aspects.get(2).around(joinPoint(() -> tokens.add(ClusterJobContext.lockToken())), clusterJob);
+        assertEquals(2, tokens.size());
+        assertTrue(tokens.get(1) > tokens.get(0));
+    }
+
+    /**
+     * 租约过期后锁失效，其他节点取得新的令牌；旧持有者不能释放新持有者的锁
+     */
+    @Test
+    void expiredLeaseIsTakenOver() throws Exception {
+        Long first = clusterStore.tryAcquire("job", "a", Duration.ofMillis(50));
+        assertNotNull(first);
+        assertNull(clusterStore.tryAcquire("job", "b", Duration.ofSeconds(10)));
+
+        Thread.sleep(100);
+        assertFalse(clusterStore.isHeld("job", "a", first));
+        Long second = clusterStore.tryAcquire("job", "b", Duration.ofSeconds(10));
+        assertNotNull(second);
+        assertTrue(second > first);
+
+        clusterStore.release("job", "a", first, Duration.ZERO);
+        assertTrue(clusterStore.isHeld("job", "b", second));
+        clusterStore.release("job", "b", second, Duration.ZERO);
+        assertFalse(clusterStore.isHeld("job", "b", second));
+    }
+
+    /**
+     * 分片执行：所有存活节点都执行，各自得到不同的分片序号，订单id按分片不重不漏
+     */
+    @Test
+    void shardedJobRunsOnEveryNode() throws Throwable {
+        // 第二轮心跳后各节点都能看到全部节点
+        nodes.forEach(ClusterNode::heartbeat);
+        nodes.forEach(ClusterNode::heartbeat);
+
+        ClusterJob clusterJob = annotation("shardedJob");
+        Set<Integer> shardIndexes = ConcurrentHashMap.newKeySet();
+        Set<Long> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ProceedingJoinPoint joinPoint = joinPoint(() -> {
+            assertEquals(NODES, ClusterJobContext.shardTotal());
+            assertTrue(ClusterJobContext.isLockHeld());
+            shardIndexes.add(ClusterJobContext.shardIndex());
+            // 与 cursorIdsByStatusAndOrderTimeLT 的 mod(id, shardTotal) = shardIndex 相同
+            for (long id = 1; id <= 1000; id++) {
+                if (id % ClusterJobContext.shardTotal() == ClusterJobContext.shardIndex() && !claimed.add(id)) {
+                    duplicates.incrementAndGet();
+                }
+            }
+        });
+        for (ClusterJobAspect aspect : aspects) {
+            aspect.around(joinPoint, clusterJob);
+        }
+
+        assertEquals(Set.of(0, 1, 2, 3), shardIndexes);
+        assertEquals(1000, claimed.size());
+        assertEquals(0, duplicates.get());
+    }
+
+    /**
+     * 心跳超时的节点不再参与分片，其余节点在下次心跳后重新分片
+     */
+    @Test
+    void expiredNodeLeavesShards() throws Exception {
+        SchedulerProperties properties = new SchedulerProperties();
+        properties.setNodeTtl(Duration.ofMillis(200));
+        List<ClusterNode> cluster = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            cluster.add(new ClusterNode(clusterStore, properties));
+        }
+        cluster.forEach(ClusterNode::heartbeat);
+        cluster.forEach(ClusterNode::heartbeat);
+        cluster.forEach(node -> assertEquals(3, node.getShardTotal()));
+
+        Thread.sleep(300);
+        List<ClusterNode> alive = cluster.subList(0, 2);
+        alive.forEach(ClusterNode::heartbeat);
+        alive.forEach(ClusterNode::heartbeat);
+
+        Set<Integer> shardIndexes = ConcurrentHashMap.newKeySet();
+        for (ClusterNode node : alive) {
+            assertEquals(2, node.getShardTotal());
+            shardIndexes.add(node.getShardIndex());
+        }
+        assertEquals(Set.of(0, 1), shardIndexes);
+    }
+
+    private interface Body {
+        void run() throws Throwable;
+    }
+
+    private static ProceedingJoinPoint joinPoint(Body body) throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            body.run();
+            return null;
+        });
+        return joinPoint;
+    }
+
+    private static ClusterJob annotation(String method) throws NoSuchMethodException {
+        return Jobs.class.getDeclaredMethod(method).getAnnotation(ClusterJob.class);
+    }
+
+    static class Jobs {
+        @ClusterJob("test:locked")
+        void lockedJob() {
+        }
+
+        @ClusterJob(value = "test:quick", minHoldSeconds = 0)
+        void quickJob() {
+        }
+
+        @ClusterJob(value = "test:sharded", sharded = true)
+        void shardedJob() {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sky.cache;
+
+import com.sky.entity.DishFlavor;
+import com.sky.vo.DishVO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis值序列化基准测试：一个分类的菜单（List&lt;DishVO&gt;，含口味）分别使用JDK序列化、JSON、压缩JSON时的编码、解码耗时
+ * 各格式的数据大小在初始化时输出
+ * 运行：mvn -pl sky-server test-compile 后执行 main 方法（不在 mvn test 中运行）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactRedisSerializerBenchmark {
+
+    @Param({"jdk", "json", "deflate"})
+    public String codec;
+
+    @Param({"10", "40"})
+    public int dishCount;
+
+    private RedisSerializer<Object> serializer;
+    private List<DishVO> menu;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        switch (codec) {
+            case "jdk":
+                serializer = new CompactRedisSerializer(false, Integer.MAX_VALUE);
+                break;
+            case "json":
+                serializer = new CompactRedisSerializer(true, Integer.MAX_VALUE);
+                break;
+            default:
+                serializer = new CompactRedisSerializer(true, 1024);
+        }
+        menu = menu(dishCount);
+        encoded = serializer.serialize(menu);
+        System.out.printf("%n%s, %d个菜品：%d字节%n", codec, dishCount, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(menu);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    /**
+     * 一个分类的菜单，每个菜品两种口味
+     * 字符串都是新对象，与从数据库查询的结果一致（JDK序列化对同一对象只写一次，共用字面量会低估其大小）
+     */
+    static List<DishVO> menu(int dishCount) {
+        List<DishVO> list = new ArrayList<>(dishCount);
+        for (long id = 1; id <= dishCount; id++) {
+            List<DishFlavor> flavors = new ArrayList<>();
+            flavors.add(DishFlavor.builder().id(id * 2).dishId(id).name(text("辣度"))
+                    .value(text("[\"不辣\",\"微辣\",\"中辣\",\"重辣\"]")).build());
+            flavors.add(DishFlavor.builder().id(id * 2 + 1).dishId(id).name(text("忌口"))
+                    .value(text("[\"不要葱\",\"不要蒜\",\"不要香菜\",\"不要辣\"]")).build());
+            list.add(DishVO.builder()
+                    .id(id)
+                    .name("招牌菜品" + id)
+                    .categoryId(11L)
+                    .price(new BigDecimal("38.00"))
+                    .image("https://sky-take-out.oss-cn-beijing.aliyuncs.com/dish/" + id + ".png")
+                    .description(text("精选食材，现点现做"))
+                    .status(1)
+                    .updateTime(LocalDateTime.of(2026, 10, 1, 12, 0, 0))
+                    .categoryName(text("热销菜品"))
+                    .flavors(flavors)
+                    .build());
+        }
+        return list;
+    }
+
+    private static String text(String value) {
+        return new String(value.toCharArray());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CompactRedisSerializerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,47 @@
+package com.sky.cache;
+
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer json = new CompactRedisSerializer(true, Integer.MAX_VALUE);
+    private final CompactRedisSerializer deflate = new CompactRedisSerializer(true, 1024);
+    private final CompactRedisSerializer jdk = new CompactRedisSerializer(false, 1024);
+
+    @Test
+    void roundTripsMenu() {
+        List<DishVO> menu = CompactRedisSerializerBenchmark.menu(40);
+        assertEquals(menu, json.deserialize(json.serialize(menu)));
+        assertEquals(menu, deflate.deserialize(deflate.serialize(menu)));
+    }
+
+    /**
+     * 超过压缩阈值的菜单压缩后小于JDK序列化
+     * 未压缩的JSON每个对象都带有类型和字段名，列表数据比JDK序列化（类描述只写一次）更大，因此依赖压缩阈值
+     */
+    @Test
+    void compressedMenuSmallerThanJdkSerialization() {
+        List<DishVO> menu = CompactRedisSerializerBenchmark.menu(40);
+        int jdkSize = new JdkSerializationRedisSerializer().serialize(menu).length;
+        int deflateSize = deflate.serialize(menu).length;
+        assertTrue(deflateSize < jdkSize, "deflate " + deflateSize + " >= jdk " + jdkSize);
+    }
+
+    /**
+     * 迁移：JDK序列化写入的旧数据仍可读取，jdk模式写入的数据JSON节点也可读取
+     */
+    @Test
+    void readsLegacyJdkValues() {
+        List<DishVO> menu = CompactRedisSerializerBenchmark.menu(3);
+        byte[] legacy = new JdkSerializationRedisSerializer().serialize(menu);
+        assertEquals(menu, json.deserialize(legacy));
+        assertEquals(menu, json.deserialize(jdk.serialize(menu)));
+        assertEquals(7, json.deserialize(json.serialize(7)));
+    }
+}
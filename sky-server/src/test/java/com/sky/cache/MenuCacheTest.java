@@ -0,0 +1,120 @@
+package com.sky.cache;
+
+import com.sky.properties.SkyCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 菜单缓存未命中时的并发加载：Redis使用mock，始终未命中
+ */
+class MenuCacheTest {
+
+    private static final int THREADS = 32;
+
+    private ValueOperations<String, Object> valueOperations;
+    private MenuCache menuCache;
+
+    // Redis读取次数，所有线程都读取过（都已未命中）后才允许加载完成
+    private CountDownLatch allMissed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        allMissed = new CountDownLatch(THREADS);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> {
+            allMissed.countDown();
+            return null;
+        });
+
+        CacheNamespaces cacheNamespaces = mock(CacheNamespaces.class);
+        when(cacheNamespaces.key(anyString(), any())).thenAnswer(invocation ->
+                invocation.getArgument(0) + ":v1:" + invocation.getArgument(1));
+
+        menuCache = new MenuCache(redisTemplate, mock(StringRedisTemplate.class), cacheNamespaces, new SkyCacheProperties());
+    }
+
+    /**
+     * N个线程同时未命中同一个key，只加载一次，所有线程得到同一结果
+     */
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<String> menu = List.of("宫保鸡丁", "鱼香肉丝");
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return menuCache.get(MenuCache.DISH, 1L, () -> {
+                        loads.incrementAndGet();
+                        await(allMissed);
+                        return menu;
+                    });
+                }));
+            }
+            for (Future<List<String>> future : futures) {
+                assertSame(menu, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        verify(valueOperations, times(1)).set(eq("dish:v1:1"), any(), any());
+
+        // 加载完成后命中本地缓存，不再加载
+        assertSame(menu, menuCache.get(MenuCache.DISH, 1L, () -> {
+            loads.incrementAndGet();
+            return menu;
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * 空结果同样缓存，再次查询不加载
+     */
+    @Test
+    void emptyResultIsCached() {
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of(), menuCache.get(MenuCache.DISH, 3L, () -> {
+                loads.incrementAndGet();
+                return List.of();
+            }));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1L, menuCache.stats().get("negativeCount"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "并发线程未全部未命中");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
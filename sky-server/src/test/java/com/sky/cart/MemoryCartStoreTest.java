@@ -0,0 +1,95 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryCartStoreTest {
+
+    private static final Long USER_ID = 7L;
+
+    private final MemoryCartStore store = new MemoryCartStore();
+
+    /**
+     * 添加：不在购物车中时新增，已在购物车中时数量加1；同一菜品的不同口味是不同的商品
+     */
+    @Test
+    void addInsertsThenIncrements() {
+        assertEquals(0, store.increment(dish(1L, "微辣")));
+        store.insert(dish(1L, "微辣"));
+        assertEquals(2, store.increment(dish(1L, "微辣")));
+        assertEquals(0, store.increment(dish(1L, "不辣")));
+        store.insert(dish(1L, "不辣"));
+        store.insert(setmeal(2L));
+
+        List<ShoppingCart> list = store.list(USER_ID);
+        assertEquals(3, list.size());
+        assertEquals(2, numberOf(list, dish(1L, "微辣")));
+        assertEquals(1, numberOf(list, dish(1L, "不辣")));
+        assertEquals(1, numberOf(list, setmeal(2L)));
+    }
+
+    /**
+     * 减少：数量减1，减到0时移除；不在购物车中时返回-1
+     */
+    @Test
+    void subDecrementsThenRemoves() {
+        store.insert(setmeal(2L));
+        store.increment(setmeal(2L));
+
+        assertEquals(1, store.decrement(setmeal(2L)));
+        assertEquals(0, store.decrement(setmeal(2L)));
+        assertTrue(store.list(USER_ID).isEmpty());
+        assertEquals(-1, store.decrement(setmeal(2L)));
+        assertEquals(-1, store.decrement(dish(1L, null)));
+    }
+
+    /**
+     * 清空：只清空当前用户的购物车，清空后可以重新添加
+     */
+    @Test
+    void cleanRemovesOnlyThatUser() {
+        store.insertBatch(List.of(dish(1L, null), setmeal(2L)));
+        ShoppingCart other = setmeal(2L);
+        other.setUserId(8L);
+        store.insert(other);
+
+        store.clear(USER_ID);
+        assertTrue(store.list(USER_ID).isEmpty());
+        assertEquals(1, store.list(8L).size());
+
+        store.insert(setmeal(2L));
+        assertEquals(1, store.list(USER_ID).size());
+    }
+
+    /**
+     * 返回的是副本，修改返回值不影响购物车
+     */
+    @Test
+    void listReturnsCopies() {
+        store.insert(dish(1L, null));
+
+        store.list(USER_ID).get(0).setNumber(99);
+
+        assertEquals(1, store.list(USER_ID).get(0).getNumber());
+    }
+
+    private static ShoppingCart dish(Long dishId, String flavor) {
+        return ShoppingCart.builder().userId(USER_ID).dishId(dishId).dishFlavor(flavor)
+                .name("菜品" + dishId).amount(new BigDecimal("12.00")).number(1).build();
+    }
+
+    private static ShoppingCart setmeal(Long setmealId) {
+        return ShoppingCart.builder().userId(USER_ID).setmealId(setmealId)
+                .name("套餐" + setmealId).amount(new BigDecimal("36.00")).number(1).build();
+    }
+
+    private static int numberOf(List<ShoppingCart> list, ShoppingCart item) {
+        return list.stream().filter(cart -> CartFields.field(cart).equals(CartFields.field(item)))
+                .findFirst().map(ShoppingCart::getNumber).orElse(0);
+    }
+}
@@ -0,0 +1,264 @@
+package com.sky.cart;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.properties.CartProperties;
+import com.sky.task.CartWriteBehindTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis购物车的清空与回写：Redis和购物车表用内存数据模拟，用户行锁用 ReentrantLock 模拟，持有到事务提交
+ */
+class RedisCartStoreTest {
+
+    private static final Long USER_ID = 7L;
+
+    // Redis：hash、字符串、cart:dirty
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    // 购物车表
+    private final Map<Long, List<ShoppingCart>> rows = new ConcurrentHashMap<>();
+
+    // 用户行锁，当前线程持有的锁在事务结束时释放
+    private final ReentrantLock userLock = new ReentrantLock();
+    private final ThreadLocal<Integer> heldLocks = ThreadLocal.withInitial(() -> 0);
+
+    private RedisCartStore store;
+    private CartWriteBehindTask writeBehindTask;
+    private ExecutorService executor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(stringRedisTemplate.opsForHash()).thenReturn((HashOperations) hashOperations);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+
+        when(hashOperations.entries(anyString()))
+                .thenAnswer(invocation -> new HashMap<>(hashes.getOrDefault(invocation.<String>getArgument(0), Map.of())));
+        doAnswer(invocation -> strings.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(stringRedisTemplate.hasKey(anyString())).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            return strings.containsKey(key) || hashes.containsKey(key);
+        });
+        when(stringRedisTemplate.delete(anyString())).thenAnswer(invocation -> deleteKey(invocation.getArgument(0)));
+        when(stringRedisTemplate.delete(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            return keys.stream().filter(this::deleteKey).count();
+        });
+        when(setOperations.add(eq(RedisCartStore.DIRTY_KEY), any()))
+                .thenAnswer(invocation -> dirty.add(invocation.getArgument(1)) ? 1L : 0L);
+        when(setOperations.remove(eq(RedisCartStore.DIRTY_KEY), any()))
+                .thenAnswer(invocation -> dirty.remove(invocation.<Object>getArgument(1)) ? 1L : 0L);
+        when(setOperations.pop(eq(RedisCartStore.DIRTY_KEY), anyLong())).thenAnswer(invocation -> {
+            List<String> popped = new ArrayList<>(dirty);
+            dirty.removeAll(popped);
+            return popped;
+        });
+
+        UserMapper userMapper = mock(UserMapper.class);
+        when(userMapper.lockById(anyLong())).thenAnswer(invocation -> {
+            userLock.lock();
+            heldLocks.set(heldLocks.get() + 1);
+            return invocation.getArgument(0);
+        });
+
+        ShoppingCartMapper shoppingCartMapper = mock(ShoppingCartMapper.class);
+        when(shoppingCartMapper.list(any(ShoppingCart.class)))
+                .thenAnswer(invocation -> new ArrayList<>(rows.getOrDefault(invocation.<ShoppingCart>getArgument(0).getUserId(), List.of())));
+        doAnswer(invocation -> rows.remove(invocation.<Long>getArgument(0)))
+                .when(shoppingCartMapper).deleteByUserId(anyLong());
+        doAnswer(invocation -> {
+            List<ShoppingCart> list = invocation.getArgument(0);
+            list.forEach(cart -> rows.computeIfAbsent(cart.getUserId(), id -> new ArrayList<>()).add(cart));
+            return null;
+        }).when(shoppingCartMapper).insertBatch(anyList());
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                inTransaction(() -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null), true, () -> {
+                }));
+
+        CartProperties cartProperties = new CartProperties();
+        store = new RedisCartStore(stringRedisTemplate, shoppingCartMapper, userMapper, cartProperties);
+        writeBehindTask = new CartWriteBehindTask(store, stringRedisTemplate, transactionTemplate, cartProperties);
+        executor = Executors.newSingleThreadExecutor();
+
+        // Redis中有尚未回写的购物车，购物车表中是上次回写的数据
+        ShoppingCart item = ShoppingCart.builder().userId(USER_ID).setmealId(2L).name("套餐2")
+                .amount(new BigDecimal("36.00")).number(1).build();
+        String field = CartFields.field(item);
+        hashes.put("cart:" + USER_ID, new ConcurrentHashMap<>(Map.of("_", "0", field, "2")));
+        hashes.put("cart:" + USER_ID + ":item", new ConcurrentHashMap<>(Map.of(field, JSON.toJSONString(item))));
+        rows.put(USER_ID, new ArrayList<>(List.of(item)));
+        dirty.add(String.valueOf(USER_ID));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 下单事务清空购物车时回写任务在等待用户行锁；清空事务提交后、Redis中的购物车删除前回写取得锁，
+     * 看到清空标记后跳过，购物车不会被重新写回购物车表
+     */
+    @Test
+    void flushRacingClearDoesNotResurrectCart() throws Exception {
+        Future<?>[] flush = new Future<?>[1];
+        inTransaction(() -> {
+            store.clear(USER_ID);
+            flush[0] = executor.submit(writeBehindTask::flush);
+            awaitQueued();
+            return null;
+        }, true, () -> {
+            // 行锁已释放，afterCompletion 尚未执行
+            await(flush[0]);
+            assertTrue(dirty.contains(String.valueOf(USER_ID)), "回写应跳过并重新标记");
+            assertFalse(rows.containsKey(USER_ID));
+        });
+
+        assertFalse(rows.containsKey(USER_ID));
+        assertFalse(hashes.containsKey("cart:" + USER_ID));
+        assertFalse(strings.containsKey("cart:" + USER_ID + ":clearing"));
+
+        // 之后的回写不会恢复已清空的购物车
+        dirty.add(String.valueOf(USER_ID));
+        writeBehindTask.flush();
+        assertFalse(rows.containsKey(USER_ID));
+        assertTrue(store.list(USER_ID).isEmpty());
+    }
+
+    /**
+     * 回写先取得行锁时清空等待回写提交，随后删除回写的数据
+     */
+    @Test
+    void clearWaitsForRunningFlush() throws Exception {
+        Future<?> clear = inTransaction(() -> {
+            userLockHeldByFlush();
+            Future<?> future = executor.submit(() -> inTransaction(() -> {
+                store.clear(USER_ID);
+                return null;
+            }, true, () -> {
+            }));
+            awaitQueued();
+            return future;
+        }, true, () -> {
+        });
+        await(clear);
+
+        assertFalse(rows.containsKey(USER_ID));
+        assertFalse(hashes.containsKey("cart:" + USER_ID));
+        assertFalse(dirty.contains(String.valueOf(USER_ID)));
+    }
+
+    /**
+     * 清空事务回滚时只删除清空标记，之后的回写照常写入
+     */
+    @Test
+    void rolledBackClearKeepsCart() {
+        Map<Long, List<ShoppingCart>> before = new HashMap<>(rows);
+        inTransaction(() -> {
+            store.clear(USER_ID);
+            return null;
+        }, false, () -> rows.putAll(before)); // 回滚购物车表的删除
+
+        assertFalse(strings.containsKey("cart:" + USER_ID + ":clearing"));
+        writeBehindTask.flush();
+        assertEquals(2, rows.get(USER_ID).get(0).getNumber());
+        assertTrue(dirty.isEmpty());
+    }
+
+    /**
+     * 模拟回写任务：锁定用户行并写入Redis中的购物车，在当前事务中持有锁
+     */
+    private void userLockHeldByFlush() {
+        assertTrue(store.flush(USER_ID));
+        assertEquals(2, rows.get(USER_ID).get(0).getNumber());
+    }
+
+    /**
+     * 在模拟的事务中执行：提交或回滚时先释放行锁，执行 afterRelease 后再调用 afterCompletion
+     */
+    private <T> T inTransaction(Supplier<T> body, boolean commit, Runnable afterRelease) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            T result = body.get();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            releaseLocks();
+            afterRelease.run();
+            int status = commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+            return result;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+            releaseLocks();
+        }
+    }
+
+    private void releaseLocks() {
+        for (int i = heldLocks.get(); i > 0; i--) {
+            userLock.unlock();
+        }
+        heldLocks.set(0);
+    }
+
+    private void awaitQueued() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!userLock.hasQueuedThreads()) {
+            assertTrue(System.currentTimeMillis() < deadline, "另一事务未在等待行锁");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean deleteKey(String key) {
+        return hashes.remove(key) != null | strings.remove(key) != null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.sky.catalog;
+
+import com.sky.result.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseWriterTest {
+
+    private final CatalogResponseWriter writer = new CatalogResponseWriter();
+
+    private final CatalogSnapshot snapshot = new CatalogSnapshot(42, true, List.of(), List.of(), List.of(), Map.of());
+
+    /**
+     * gzip与未压缩的内容使用不同的ETag，内容相同
+     */
+    @Test
+    void gzipAndIdentityHaveDifferentEtags() throws IOException {
+        MockHttpServletResponse identity = write(null, null);
+        MockHttpServletResponse gzip = write("gzip, deflate, br", null);
+
+        assertEquals("\"42-dish:1\"", identity.getHeader(HttpHeaders.ETAG));
+        assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"42-dish:1-gz\"", gzip.getHeader(HttpHeaders.ETAG));
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))) {
+            assertArrayEquals(identity.getContentAsByteArray(), in.readAllBytes());
+        }
+    }
+
+    /**
+     * If-None-Match包含任一ETag时返回304，响应头的ETag与本次请求的编码一致
+     */
+    @Test
+    void eitherEtagIsNotModified() throws IOException {
+        MockHttpServletResponse response = write("gzip", "\"42-dish:1\"");
+        assertEquals(304, response.getStatus());
+        assertEquals("\"42-dish:1-gz\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        assertEquals(304, write(null, "\"other\", \"42-dish:1-gz\"").getStatus());
+        assertEquals(304, write(null, "W/\"42-dish:1-gz\"").getStatus());
+        assertEquals(200, write("gzip", "\"41-dish:1-gz\"").getStatus());
+    }
+
+    /**
+     * 快照不可用时输出的查询结果：ETag使用内容的校验和，内容不变时返回304
+     */
+    @Test
+    void resultWithoutSnapshotUsesChecksumEtag() throws IOException {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        writer.write("dish:1", Result.success(List.of("宫保鸡丁")), new MockHttpServletRequest(), first);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("\"local-") && etag.endsWith("-dish:1\""));
+        assertEquals(200, first.getStatus());
+        assertTrue(first.getContentAsString(StandardCharsets.UTF_8).contains("宫保鸡丁"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        writer.write("dish:1", Result.success(List.of("宫保鸡丁")), request, second);
+        assertEquals(304, second.getStatus());
+
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        writer.write("dish:1", Result.success(List.of("鱼香肉丝")), request, changed);
+        assertEquals(200, changed.getStatus());
+    }
+
+    @Test
+    void acceptEncodingHonoursQuality() {
+        assertTrue(CatalogResponseWriter.acceptsGzip("gzip"));
+        assertTrue(CatalogResponseWriter.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(CatalogResponseWriter.acceptsGzip("x-gzip"));
+        assertTrue(CatalogResponseWriter.acceptsGzip("*"));
+        assertFalse(CatalogResponseWriter.acceptsGzip(null));
+        assertFalse(CatalogResponseWriter.acceptsGzip("gzip;q=0"));
+        assertFalse(CatalogResponseWriter.acceptsGzip("gzip; q=0.000, identity"));
+        assertFalse(CatalogResponseWriter.acceptsGzip("*, gzip;q=0"));
+        assertFalse(CatalogResponseWriter.acceptsGzip("*;q=0"));
+        assertFalse(CatalogResponseWriter.acceptsGzip("gzip;q=abc"));
+        assertFalse(CatalogResponseWriter.acceptsGzip("br, deflate"));
+        assertFalse(CatalogResponseWriter.acceptsGzip("gzipx"));
+    }
+
+    private MockHttpServletResponse write(String acceptEncoding, String ifNoneMatch) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(snapshot, "dish:1", () -> List.of("宫保鸡丁"), request, response);
+        return response;
+    }
+}
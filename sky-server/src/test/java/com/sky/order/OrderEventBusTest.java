@@ -0,0 +1,117 @@
+package com.sky.order;
+
+import com.sky.entity.OrderEvent;
+import com.sky.mapper.OrderEventMapper;
+import com.sky.properties.OrderProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单事件分发：部分订阅者失败时，重试只分发给失败的订阅者
+ */
+class OrderEventBusTest {
+
+    private OrderEventMapper orderEventMapper;
+    private CountingListener counter;
+    private FlakyListener notifier;
+    private OrderEventBus orderEventBus;
+
+    @BeforeEach
+    void setUp() {
+        orderEventMapper = mock(OrderEventMapper.class);
+        when(orderEventMapper.claim(anyLong(), any(), any())).thenReturn(1);
+        counter = new CountingListener();
+        notifier = new FlakyListener();
+        orderEventBus = new OrderEventBus(orderEventMapper, List.of(counter, notifier), new OrderProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderEventBus.shutdown();
+    }
+
+    @Test
+    void retryOnlyRedeliversToFailedListeners() {
+        OrderEvent event = event(null);
+        when(orderEventMapper.getDue(any(), anyInt())).thenReturn(List.of(event));
+        orderEventBus.relay();
+
+        // 第一次分发：计数成功，推送失败，只记录计数已处理
+        verify(orderEventMapper, timeout(5000)).markRetry(eq(1L), eq(OrderEvent.PENDING), eq(1), any(), eq("CountingListener"));
+        assertEquals(1, counter.calls.get());
+        assertEquals(1, notifier.calls.get());
+
+        // 重试：从数据库重新读取的事件带有已处理的订阅者
+        when(orderEventMapper.getDue(any(), anyInt())).thenReturn(List.of(event("CountingListener")));
+        orderEventBus.relay();
+
+        verify(orderEventMapper, timeout(5000)).markDone(1L);
+        assertEquals(1, counter.calls.get());
+        assertEquals(2, notifier.calls.get());
+    }
+
+    @Test
+    void failedListenerDoesNotStopOthers() {
+        notifier.failures.set(Integer.MAX_VALUE);
+        CountingListener last = new CountingListener();
+        orderEventBus.shutdown();
+        orderEventBus = new OrderEventBus(orderEventMapper, List.of(notifier, last), new OrderProperties());
+        when(orderEventMapper.getDue(any(), anyInt())).thenReturn(List.of(event(null)));
+        orderEventBus.relay();
+
+        verify(orderEventMapper, timeout(5000)).markRetry(eq(1L), eq(OrderEvent.PENDING), eq(1), any(), eq("CountingListener"));
+        assertEquals(1, last.calls.get());
+        verify(orderEventMapper, never()).markDone(anyLong());
+    }
+
+    private static OrderEvent event(String delivered) {
+        return OrderEvent.builder()
+                .id(1L)
+                .type(OrderEvent.STATUS_CHANGED)
+                .orderId(100L)
+                .fromStatus(2)
+                .toStatus(3)
+                .status(OrderEvent.PENDING)
+                .retryCount(delivered == null ? 0 : 1)
+                .nextRetryTime(LocalDateTime.now())
+                .delivered(delivered)
+                .build();
+    }
+
+    static class CountingListener implements OrderEventListener {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void onEvent(OrderEvent event) {
+            calls.incrementAndGet();
+        }
+    }
+
+    /**
+     * 前 failures 次处理失败
+     */
+    static class FlakyListener implements OrderEventListener {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger(1);
+
+        @Override
+        public void onEvent(OrderEvent event) {
+            calls.incrementAndGet();
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("推送失败");
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.sky.order;
+
+import com.sky.entity.OrderSearchGram;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderSearchMapper;
+import com.sky.properties.OrderProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 存量订单补建搜索索引：订单表和Redis中的补建进度用内存数据模拟
+ */
+class OrderSearchIndexTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    // 订单表中的订单id
+    private final List<Long> orderIds = new ArrayList<>();
+
+    // 补建进度
+    private final Map<Object, Object> state = new HashMap<>();
+
+    // 已写入索引的订单id
+    private final Set<Long> indexed = new HashSet<>();
+
+    private OrderSearchIndex orderSearchIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        for (long id = 1; id <= 2500; id++) {
+            orderIds.add(id);
+        }
+        OrderMapper orderMapper = mock(OrderMapper.class);
+        when(orderMapper.getMaxId()).thenAnswer(invocation -> orderIds.isEmpty() ? null : orderIds.get(orderIds.size() - 1));
+        when(orderMapper.listSearchFieldsBefore(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long before = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return orderIds.stream().filter(id -> id < before).sorted((a, b) -> Long.compare(b, a))
+                    .limit(limit).map(OrderSearchIndexTest::order).toList();
+        });
+        when(orderMapper.listSearchFieldsAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return orderIds.stream().filter(id -> id > after).limit(limit).map(OrderSearchIndexTest::order).toList();
+        });
+
+        OrderSearchMapper orderSearchMapper = mock(OrderSearchMapper.class);
+        doAnswer(invocation -> {
+            List<OrderSearchGram> grams = invocation.getArgument(0);
+            grams.forEach(gram -> indexed.add(gram.getOrderId()));
+            return null;
+        }).when(orderSearchMapper).insertGrams(anyList());
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(stringRedisTemplate.opsForHash()).thenReturn((HashOperations) hashOperations);
+        when(hashOperations.entries(anyString())).thenAnswer(invocation -> new HashMap<>(state));
+        when(hashOperations.get(anyString(), any())).thenAnswer(invocation -> state.get(invocation.getArgument(1)));
+        doAnswer(invocation -> state.put(invocation.getArgument(1), invocation.getArgument(2)))
+                .when(hashOperations).put(anyString(), any(), any());
+
+        OrderProperties orderProperties = new OrderProperties();
+        orderProperties.setSearchBackfillBatchSize(BATCH_SIZE);
+        orderSearchIndex = new OrderSearchIndex(orderMapper, orderSearchMapper, stringRedisTemplate, orderProperties);
+    }
+
+    /**
+     * 补建前不能使用索引；补建期间进度单调下降，进度以上的订单都已建立索引；补建完成后所有订单都已建立索引
+     */
+    @Test
+    void backfillCoversEveryOrder() {
+        assertNull(orderSearchIndex.unindexedBelow());
+
+        // 每次执行补建10批
+        orderSearchIndex.backfill();
+        long cursor = orderSearchIndex.unindexedBelow();
+        assertEquals(1501, cursor);
+        for (long id = cursor; id <= 2500; id++) {
+            assertTrue(indexed.contains(id));
+        }
+
+        // 补建期间旧版本节点写入的订单没有索引
+        orderIds.add(2501L);
+        for (int i = 0; i < 10 && !state.containsKey("done"); i++) {
+            orderSearchIndex.backfill();
+            long next = orderSearchIndex.unindexedBelow();
+            assertTrue(next < cursor || next == 0);
+            cursor = next;
+        }
+        assertEquals(0L, orderSearchIndex.unindexedBelow());
+
+        assertEquals(new HashSet<>(orderIds), indexed);
+        assertEquals("1", state.get("done"));
+    }
+
+    /**
+     * 没有订单时直接完成
+     */
+    @Test
+    void emptyTableCompletesImmediately() {
+        orderIds.clear();
+
+        orderSearchIndex.backfill();
+
+        assertEquals(0L, orderSearchIndex.unindexedBelow());
+        assertEquals("1", state.get("done"));
+    }
+
+    private static Orders order(Long id) {
+        return Orders.builder().id(id).number("17" + String.format("%010d", id)).phone("138" + String.format("%08d", id)).build();
+    }
+}
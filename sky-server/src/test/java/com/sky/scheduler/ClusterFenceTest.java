@@ -0,0 +1,94 @@
+package com.sky.scheduler;
+
+import com.sky.mapper.JobFenceMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 令牌校验：job_fence 表使用内存中的 Map 模拟，锁使用 MemoryClusterStore
+ */
+class ClusterFenceTest {
+
+    private static final String JOB = "orderTask:timeout";
+
+    private MemoryClusterStore clusterStore;
+    private JobFenceMapper jobFenceMapper;
+    private ClusterFence clusterFence;
+
+    // job_fence 表：任务名称 -> 已写入的最大令牌
+    private final Map<String, Long> fences = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        clusterStore = new MemoryClusterStore();
+        jobFenceMapper = mock(JobFenceMapper.class);
+        doAnswer(invocation -> fences.putIfAbsent(invocation.getArgument(0), 0L))
+                .when(jobFenceMapper).insertIfAbsent(anyString());
+        when(jobFenceMapper.lockToken(anyString())).thenAnswer(invocation -> fences.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> fences.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(jobFenceMapper).updateToken(anyString(), anyLong());
+        clusterFence = new ClusterFence(jobFenceMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ClusterJobContext.clear();
+    }
+
+    /**
+     * 不在加锁执行的集群定时任务中时不校验
+     */
+    @Test
+    void passesOutsideLockedJob() {
+        assertTrue(clusterFence.check());
+        ClusterJobContext.set(new ClusterJobContext(JOB, "a", null, 1, 3, clusterStore));
+        assertTrue(clusterFence.check());
+        verifyNoInteractions(jobFenceMapper);
+    }
+
+    /**
+     * 租约过期后其他节点取得锁并写入，旧持有者的写入被拒绝
+     */
+    @Test
+    void rejectsStaleHolderAfterTakeover() throws Exception {
+        Long stale = clusterStore.tryAcquire(JOB, "a", Duration.ofMillis(50));
+        ClusterJobContext.set(new ClusterJobContext(JOB, "a", stale, 0, 1, clusterStore));
+        assertTrue(clusterFence.check());
+        assertTrue(clusterFence.check());
+        verify(jobFenceMapper, times(1)).updateToken(JOB, stale);
+
+        Thread.sleep(100);
+        Long current = clusterStore.tryAcquire(JOB, "b", Duration.ofSeconds(10));
+        ClusterJobContext.set(new ClusterJobContext(JOB, "b", current, 0, 1, clusterStore));
+        assertTrue(clusterFence.check());
+        assertEquals(current, fences.get(JOB));
+
+        // 旧持有者仍在执行
+        ClusterJobContext.set(new ClusterJobContext(JOB, "a", stale, 0, 1, clusterStore));
+        assertFalse(clusterFence.check());
+        assertEquals(current, fences.get(JOB));
+    }
+
+    /**
+     * 协调存储的令牌计数重置后，仍持有锁的节点重新记录令牌
+     */
+    @Test
+    void acceptsHolderAfterCounterReset() {
+        fences.put(JOB, 100L);
+        Long token = clusterStore.tryAcquire(JOB, "a", Duration.ofSeconds(10));
+        ClusterJobContext.set(new ClusterJobContext(JOB, "a", token, 0, 1, clusterStore));
+
+        assertTrue(clusterFence.check());
+        assertEquals(token, fences.get(JOB));
+    }
+}
@@ -0,0 +1,88 @@
+package com.sky.service.impl;
+
+import com.sky.catalog.CatalogManager;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 菜品查询执行的SQL语句数：每个mapper方法调用对应一条语句
+ */
+class DishServiceImplTest {
+
+    private DishMapper dishMapper;
+    private DishFlavorMapper dishFlavorMapper;
+    private DishServiceImpl dishService;
+
+    @BeforeEach
+    void setUp() {
+        dishMapper = mock(DishMapper.class);
+        dishFlavorMapper = mock(DishFlavorMapper.class);
+        dishService = new DishServiceImpl(dishMapper, dishFlavorMapper, mock(SetmealDishMapper.class), mock(CatalogManager.class));
+    }
+
+    /**
+     * 不论分类下有多少菜品，查询菜品及口味都只执行两条语句
+     */
+    @Test
+    void listWithFlavorRunsTwoStatements() {
+        int dishCount = 40;
+        List<Dish> dishes = new ArrayList<>();
+        List<DishFlavor> flavors = new ArrayList<>();
+        for (long id = 1; id <= dishCount; id++) {
+            dishes.add(Dish.builder().id(id).name("菜品" + id).categoryId(1L).build());
+            flavors.add(DishFlavor.builder().dishId(id).name("辣度").value("[\"微辣\",\"中辣\"]").build());
+            flavors.add(DishFlavor.builder().dishId(id).name("忌口").value("[\"不要葱\"]").build());
+        }
+        when(dishMapper.list(any())).thenReturn(dishes);
+        when(dishFlavorMapper.getByDishIds(anyList())).thenReturn(flavors);
+
+        List<DishVO> result = dishService.listWithFlavor(Dish.builder().categoryId(1L).status(1).build());
+
+        assertEquals(dishCount, result.size());
+        for (DishVO dishVO : result) {
+            assertEquals(2, dishVO.getFlavors().size());
+            dishVO.getFlavors().forEach(flavor -> assertEquals(dishVO.getId(), flavor.getDishId()));
+        }
+        assertEquals(2, statementCount());
+        verify(dishFlavorMapper, never()).getByDishId(any());
+    }
+
+    /**
+     * 分类下没有菜品时不查询口味
+     */
+    @Test
+    void listWithFlavorSkipsFlavorsForEmptyCategory() {
+        when(dishMapper.list(any())).thenReturn(new ArrayList<>());
+
+        assertEquals(0, dishService.listWithFlavor(Dish.builder().categoryId(1L).build()).size());
+        assertEquals(1, statementCount());
+    }
+
+    @Test
+    void getByIdWithFlavorRunsTwoStatements() {
+        when(dishMapper.getById(1L)).thenReturn(Dish.builder().id(1L).build());
+        when(dishFlavorMapper.getByDishId(1L)).thenReturn(List.of(DishFlavor.builder().dishId(1L).build()));
+
+        assertEquals(1, dishService.getByIdWithFlavor(1L).getFlavors().size());
+        assertEquals(2, statementCount());
+    }
+
+    private int statementCount() {
+        return mockingDetails(dishMapper).getInvocations().size()
+                + mockingDetails(dishFlavorMapper).getInvocations().size();
+    }
+}
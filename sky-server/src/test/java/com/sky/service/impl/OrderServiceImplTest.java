@@ -0,0 +1,182 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.cart.CartStore;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.order.OrderEventBus;
+import com.sky.order.OrderSearchIndex;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.OrderStatusCounter;
+import com.sky.properties.GeoProperties;
+import com.sky.result.PageResult;
+import com.sky.service.GeoService;
+import com.sky.utils.SnowflakeIdGenerator;
+import com.sky.vo.OrderVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 订单分页查询执行的SQL语句数：每个mapper方法调用对应一条语句（分页的count语句由PageHelper在同一次调用中执行）
+ * 不论每页多少订单，都只查询一次订单明细
+ */
+class OrderServiceImplTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    private OrderMapper orderMapper;
+    private OrderDetailMapper orderDetailMapper;
+    private OrderSearchIndex orderSearchIndex;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderMapper = mock(OrderMapper.class);
+        orderDetailMapper = mock(OrderDetailMapper.class);
+        orderSearchIndex = mock(OrderSearchIndex.class);
+        orderService = new OrderServiceImpl(orderMapper, orderDetailMapper, mock(CartStore.class), mock(UserMapper.class),
+                mock(AddressBookMapper.class), mock(OrderEventBus.class), mock(GeoService.class), new GeoProperties(),
+                mock(TransactionTemplate.class), mock(SnowflakeIdGenerator.class), orderSearchIndex,
+                mock(OrderStatusCounter.class), mock(OrderStateMachine.class));
+
+        when(orderMapper.pageQuery(any())).thenReturn(page());
+        when(orderMapper.searchQuery(any(), anyList(), anyList(), any())).thenReturn(page());
+        when(orderDetailMapper.getByOrderIds(anyList())).thenReturn(details());
+        when(orderSearchIndex.unindexedBelow()).thenReturn(0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        PageHelper.clearPage();
+        BaseContext.removeCurrentId();
+    }
+
+    @Test
+    void pageQuery4UserRunsTwoStatements() {
+        BaseContext.setCurrentId(1L);
+
+        PageResult<OrderVO> result = orderService.pageQuery4User(1, PAGE_SIZE, null);
+
+        assertEquals(PAGE_SIZE, result.getRecords().size());
+        for (OrderVO orderVO : result.getRecords()) {
+            assertEquals(2, orderVO.getOrderDetailList().size());
+        }
+        assertEquals(2, statementCount());
+        verify(orderDetailMapper, never()).getByOrderId(anyLong());
+    }
+
+    @Test
+    void conditionSearchRunsTwoStatements() {
+        PageResult<OrderVO> result = orderService.conditionSearch(query(null));
+
+        assertEquals(PAGE_SIZE, result.getRecords().size());
+        assertEquals("宫保鸡丁*2;米饭*1;", result.getRecords().get(0).getOrderDishes());
+        assertEquals(2, statementCount());
+    }
+
+    /**
+     * 按手机号搜索时通过n-gram索引查询，同样只有两条语句
+     */
+    @Test
+    void conditionSearchByPhoneRunsTwoStatements() {
+        PageResult<OrderVO> result = orderService.conditionSearch(query("1380013"));
+
+        assertEquals(PAGE_SIZE, result.getRecords().size());
+        verify(orderMapper).searchQuery(any(), anyList(), anyList(), any());
+        assertEquals(2, statementCount());
+    }
+
+    /**
+     * 存量订单补建完成后只查询索引，不再执行 like 分支
+     */
+    @Test
+    void searchUsesIndexOnlyAfterBackfill() {
+        orderService.conditionSearch(query("1380013"));
+
+        verify(orderMapper).searchQuery(any(), eq(List.of()), eq(List.of("138", "380", "800", "001", "013")), isNull());
+        verify(orderMapper, never()).pageQuery(any());
+    }
+
+    /**
+     * 补建期间id小于补建进度的订单仍按 like 查询
+     */
+    @Test
+    void searchQueriesUnindexedRangeDuringBackfill() {
+        when(orderSearchIndex.unindexedBelow()).thenReturn(12345L);
+
+        orderService.conditionSearch(query("1380013"));
+
+        verify(orderMapper).searchQuery(any(), anyList(), anyList(), eq(12345L));
+    }
+
+    /**
+     * 补建尚未开始（或无法读取进度）时不能使用索引，按原来的 like 查询
+     */
+    @Test
+    void searchFallsBackBeforeBackfillStarts() {
+        when(orderSearchIndex.unindexedBelow()).thenReturn(null);
+
+        orderService.conditionSearch(query("1380013"));
+
+        verify(orderMapper).pageQuery(any());
+        verify(orderMapper, never()).searchQuery(any(), anyList(), anyList(), any());
+    }
+
+    /**
+     * 关键字短于gram长度时无法使用索引，也不读取补建进度
+     */
+    @Test
+    void shortKeywordSkipsIndex() {
+        orderService.conditionSearch(query("13"));
+
+        verify(orderMapper).pageQuery(any());
+        verify(orderSearchIndex, never()).unindexedBelow();
+    }
+
+    private int statementCount() {
+        return mockingDetails(orderMapper).getInvocations().size()
+                + mockingDetails(orderDetailMapper).getInvocations().size();
+    }
+
+    private static OrdersPageQueryDTO query(String phone) {
+        OrdersPageQueryDTO query = new OrdersPageQueryDTO();
+        query.setPage(1);
+        query.setPageSize(PAGE_SIZE);
+        query.setPhone(phone);
+        return query;
+    }
+
+    private static Page<Orders> page() {
+        Page<Orders> page = new Page<>(1, PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            page.add(Orders.builder().id(id).number(String.valueOf(1000 + id)).build());
+        }
+        page.setTotal(PAGE_SIZE * 3);
+        return page;
+    }
+
+    private static List<OrderDetail> details() {
+        List<OrderDetail> list = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            list.add(OrderDetail.builder().orderId(id).name("宫保鸡丁").number(2).build());
+            list.add(OrderDetail.builder().orderId(id).name("米饭").number(1).build());
+        }
+        return list;
+    }
+}
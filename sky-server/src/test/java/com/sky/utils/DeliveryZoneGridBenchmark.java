@@ -0,0 +1,144 @@
+package com.sky.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配送范围判定基准测试：尚未解析距离的收货地址，原来每次都调用路线规划接口，现在先查配送范围网格，只有边界网格才调用
+ * 路线规划接口由本地的桩服务器模拟（固定响应，不含公网延迟，实际接口的耗时远大于此），坐标在配送范围1.5倍的正方形内均匀分布
+ * 边界网格的比例在初始化时输出
+ * 运行：mvn -pl sky-server test-compile 后执行 main 方法（不在 mvn test 中运行）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryZoneGridBenchmark {
+
+    private static final double SHOP_LNG = 116.404;
+    private static final double SHOP_LAT = 39.915;
+    private static final int RADIUS = 5000;
+    private static final int POINTS = 4096;
+
+    private static final String DRIVING_RESPONSE =
+            "{\"status\":0,\"message\":\"ok\",\"result\":{\"routes\":[{\"distance\":4321,\"duration\":900}]}}";
+
+    private HttpServer server;
+    private String drivingUrl;
+    private DeliveryZoneGrid grid;
+    private double[] lngs;
+    private double[] lats;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/directionlite/v1/driving", exchange -> {
+            byte[] body = DRIVING_RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        drivingUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/directionlite/v1/driving";
+
+        grid = new DeliveryZoneGrid(SHOP_LNG, SHOP_LAT, RADIUS, 200, 1.4);
+        double metersPerDegreeLng = 111_320.0 * Math.cos(Math.toRadians(SHOP_LAT));
+        Random random = new Random(42);
+        lngs = new double[POINTS];
+        lats = new double[POINTS];
+        int borderline = 0;
+        for (int i = 0; i < POINTS; i++) {
+            lngs[i] = SHOP_LNG + (random.nextDouble() * 2 - 1) * RADIUS * 1.5 / metersPerDegreeLng;
+            lats[i] = SHOP_LAT + (random.nextDouble() * 2 - 1) * RADIUS * 1.5 / 111_320.0;
+            if (grid.locate(lngs[i], lats[i]) == DeliveryZoneGrid.BORDERLINE) {
+                borderline++;
+            }
+        }
+        System.out.printf("%n边界网格坐标比例：%.1f%%%n", borderline * 100.0 / POINTS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * 原来的判定方式：每个地址都调用路线规划接口
+     */
+    @Benchmark
+    public boolean routeOnly() {
+        int i = nextPoint();
+        return requestDrivingDistance(lngs[i], lats[i]) <= RADIUS;
+    }
+
+    /**
+     * 先查配送范围网格，只有边界网格调用路线规划接口
+     */
+    @Benchmark
+    public boolean gridThenRoute() {
+        int i = nextPoint();
+        byte zone = grid.locate(lngs[i], lats[i]);
+        if (zone == DeliveryZoneGrid.INSIDE) {
+            return true;
+        }
+        if (zone == DeliveryZoneGrid.OUTSIDE) {
+            return false;
+        }
+        return requestDrivingDistance(lngs[i], lats[i]) <= RADIUS;
+    }
+
+    /**
+     * 只查配送范围网格
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte gridOnly() {
+        int i = nextPoint();
+        return grid.locate(lngs[i], lats[i]);
+    }
+
+    private int nextPoint() {
+        next = (next + 1) & (POINTS - 1);
+        return next;
+    }
+
+    /**
+     * 与 GeoServiceImpl 调用路线规划接口的方式相同：HttpClientUtil 发送请求并解析距离
+     */
+    private int requestDrivingDistance(double lng, double lat) {
+        Map<String, String> params = new HashMap<>();
+        params.put("origin", SHOP_LAT + "," + SHOP_LNG);
+        params.put("destination", lat + "," + lng);
+        params.put("ak", "benchmark");
+        params.put("steps_info", "0");
+        params.put("coord_type", "bd09ll");
+        String response = HttpClientUtil.doGet(drivingUrl, params);
+        return JSON.parseObject(response).getJSONObject("result").getJSONArray("routes").getJSONObject(0).getIntValue("distance");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DeliveryZoneGridBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
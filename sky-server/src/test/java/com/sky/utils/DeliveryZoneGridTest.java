@@ -0,0 +1,94 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 配送范围网格判定：INSIDE 的坐标绕路后仍在范围内，OUTSIDE 的坐标直线距离已超出范围
+ */
+class DeliveryZoneGridTest {
+
+    private static final double SHOP_LNG = 116.404;
+    private static final double SHOP_LAT = 39.915;
+    private static final int RADIUS = 5000;
+    private static final double CELL_SIZE = 200;
+    private static final double DETOUR_FACTOR = 1.4;
+
+    // 与 DeliveryZoneGrid 相同的等距投影
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final double METERS_PER_DEGREE_LNG = METERS_PER_DEGREE * Math.cos(Math.toRadians(SHOP_LAT));
+
+    private final DeliveryZoneGrid grid = new DeliveryZoneGrid(SHOP_LNG, SHOP_LAT, RADIUS, CELL_SIZE, DETOUR_FACTOR);
+
+    @Test
+    void shopIsInside() {
+        assertEquals(DeliveryZoneGrid.INSIDE, locate(0, 0));
+        assertEquals(DeliveryZoneGrid.INSIDE, locate(1000, -1000));
+    }
+
+    @Test
+    void farPointsAreOutside() {
+        assertEquals(DeliveryZoneGrid.OUTSIDE, locate(RADIUS + 500, 0));
+        assertEquals(DeliveryZoneGrid.OUTSIDE, locate(-4000, -4000));
+        // 网格覆盖范围之外
+        assertEquals(DeliveryZoneGrid.OUTSIDE, locate(0, 3 * RADIUS));
+        assertEquals(DeliveryZoneGrid.OUTSIDE, locate(-3 * RADIUS, 0));
+    }
+
+    /**
+     * 直线距离在范围内、但绕路后可能超出范围的坐标需要路线规划
+     */
+    @Test
+    void pointsNearRadiusAreBorderline() {
+        assertEquals(DeliveryZoneGrid.BORDERLINE, locate(RADIUS - 100, 0));
+        assertEquals(DeliveryZoneGrid.BORDERLINE, locate(0, -(RADIUS - 300)));
+        assertEquals(DeliveryZoneGrid.BORDERLINE, locate(3000, 3000));
+    }
+
+    /**
+     * 随机坐标：INSIDE 的直线距离乘以绕路系数不超过配送范围，OUTSIDE 的直线距离超过配送范围
+     */
+    @Test
+    void classificationIsSound() {
+        Random random = new Random(42);
+        int[] counts = new int[4];
+        for (int i = 0; i < 100_000; i++) {
+            double x = (random.nextDouble() * 2 - 1) * RADIUS * 1.5;
+            double y = (random.nextDouble() * 2 - 1) * RADIUS * 1.5;
+            double distance = Math.hypot(x, y);
+            byte zone = locate(x, y);
+            counts[zone]++;
+            if (zone == DeliveryZoneGrid.INSIDE) {
+                assertTrue(distance * DETOUR_FACTOR <= RADIUS + 1, "INSIDE: " + distance);
+            } else if (zone == DeliveryZoneGrid.OUTSIDE) {
+                assertTrue(distance > RADIUS - 1, "OUTSIDE: " + distance);
+            }
+        }
+        // 边界网格只占一小部分，大部分坐标不需要路线规划
+        assertTrue(counts[DeliveryZoneGrid.BORDERLINE] < counts[DeliveryZoneGrid.INSIDE] + counts[DeliveryZoneGrid.OUTSIDE]);
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DeliveryZoneGrid(SHOP_LNG, SHOP_LAT, 0, CELL_SIZE, DETOUR_FACTOR));
+        assertThrows(IllegalArgumentException.class, () -> new DeliveryZoneGrid(SHOP_LNG, SHOP_LAT, RADIUS, 0, DETOUR_FACTOR));
+        assertThrows(IllegalArgumentException.class, () -> new DeliveryZoneGrid(SHOP_LNG, SHOP_LAT, RADIUS, CELL_SIZE, 0.9));
+    }
+
+    @Test
+    void matchesBuildParameters() {
+        assertTrue(grid.matches(SHOP_LNG, SHOP_LAT, RADIUS));
+        assertFalse(grid.matches(SHOP_LNG, SHOP_LAT, RADIUS + 1));
+        assertFalse(grid.matches(SHOP_LNG + 0.001, SHOP_LAT, RADIUS));
+    }
+
+    /**
+     * 按相对店铺的东西、南北偏移（米）查询
+     */
+    private byte locate(double eastMeters, double northMeters) {
+        return grid.locate(SHOP_LNG + eastMeters / METERS_PER_DEGREE_LNG, SHOP_LAT + northMeters / METERS_PER_DEGREE);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * n-gram 切分：查询时 having count(*) = gram数量 依赖切分结果不重复
+ */
+class NGramUtilTest {
+
+    @Test
+    void shortInputHasNoGrams() {
+        assertTrue(NGramUtil.grams(null).isEmpty());
+        assertTrue(NGramUtil.grams("").isEmpty());
+        assertTrue(NGramUtil.grams("13").isEmpty());
+        assertEquals(List.of("138"), NGramUtil.grams("138"));
+    }
+
+    @Test
+    void gramsInOrder() {
+        assertEquals(List.of("138", "380", "800", "001"), NGramUtil.grams("138001"));
+    }
+
+    /**
+     * 重复的gram只保留一个，与 order_search_gram 主键 (field, gram, order_id) 去重后的行数一致
+     */
+    @Test
+    void repeatedGramsAreDistinct() {
+        assertEquals(List.of("111"), NGramUtil.grams("1111"));
+        assertEquals(List.of("121", "212"), NGramUtil.grams("12121"));
+
+        List<String> grams = NGramUtil.grams("13800138000");
+        assertEquals(grams.stream().distinct().count(), grams.size());
+        assertEquals(List.of("138", "380", "800", "001", "013", "000"), grams);
+    }
+}
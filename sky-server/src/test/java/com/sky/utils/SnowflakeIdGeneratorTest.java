@@ -0,0 +1,110 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50000;
+
+    /**
+     * 多线程并发生成的id不重复，且每个线程内单调递增
+     */
+    @Test
+    void concurrentIdsAreUniqueAndMonotonic() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int j = 0; j < ids.length; j++) {
+                        ids[j] = generator.nextId();
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int j = 0; j < ids.length; j++) {
+                    if (j > 0) {
+                        assertTrue(ids[j] > ids[j - 1], "同一线程内id应单调递增");
+                    }
+                    assertTrue(all.add(ids[j]), "id重复：" + ids[j]);
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 不同机器id生成的id不重复
+     */
+    @Test
+    void differentWorkersNeverCollide() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, 5000);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, 5000);
+        Set<Long> all = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(all.add(first.nextId()));
+            assertTrue(all.add(second.nextId()));
+        }
+    }
+
+    /**
+     * 租约到期后拒绝生成id，续期后恢复，换用新的机器id后id仍递增
+     */
+    @Test
+    void expiredLeaseBlocksGeneration() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, System.currentTimeMillis() - 1, 5000);
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.renew(3, System.currentTimeMillis() + 60000);
+        long before = generator.nextId();
+
+        generator.renew(4, System.currentTimeMillis() + 60000);
+        long after = generator.nextId();
+        assertEquals(4, generator.getWorkerId());
+        assertTrue(after > before);
+    }
+
+    /**
+     * 持续超过每毫秒4096个id时等待下一毫秒，时间戳不会超前于时钟而被误判为时钟回拨
+     */
+    @Test
+    void sustainedLoadDoesNotRunAheadOfClock() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5);
+        long deadline = System.currentTimeMillis() + 100;
+        long last = 0;
+        while (System.currentTimeMillis() < deadline) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        long issuedAt = (last >>> 22) + 1704067200000L;
+        assertTrue(issuedAt <= System.currentTimeMillis());
+    }
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, 5000));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1, 5000));
+    }
+}
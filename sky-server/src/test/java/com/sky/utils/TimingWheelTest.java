@@ -0,0 +1,184 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 与 OrderTimeoutQueue 相同的配置：每格1秒，每层60格，第二层每格1分钟，第三层每格1小时
+ * 任务不会提前到期，最多晚一格（1秒）
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int WHEEL_SIZE = 60;
+
+    // 不在整秒上的起始时间
+    private static final long START = 1_700_000_017_345L;
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+
+    private final TimingWheel wheel = new TimingWheel(TICK, WHEEL_SIZE, START);
+
+    /**
+     * 到期时间在当前格内：当前格结束前不返回，结束时返回
+     */
+    @Test
+    void deadlineInCurrentTick() {
+        long tickEnd = START - START % TICK + TICK;
+        wheel.add(1, START + 200);
+        wheel.add(2, START - START % TICK);
+
+        assertTrue(wheel.advance(START + 200).isEmpty());
+        assertTrue(wheel.advance(tickEnd - 1).isEmpty());
+        assertEquals(List.of(1L, 2L), sorted(wheel.advance(tickEnd)));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * 15分钟后到期：放入第二层，逐层下移后按时返回
+     */
+    @Test
+    void deadlineInFirstOverflowLevel() {
+        long deadline = START + 15 * MINUTE;
+        wheel.add(1, deadline);
+
+        Map<Long, Long> fired = run(START + 20 * MINUTE, 250);
+
+        assertFiredOnTime(deadline, fired.get(1L));
+    }
+
+    /**
+     * 超过1小时后到期：放入第三层，经过两层下移后按时返回
+     */
+    @Test
+    void deadlineInSecondOverflowLevel() {
+        long deadline = START + HOUR + 23 * MINUTE + 7_000;
+        wheel.add(1, deadline);
+
+        Map<Long, Long> fired = run(START + 2 * HOUR, 1000);
+
+        assertFiredOnTime(deadline, fired.get(1L));
+    }
+
+    /**
+     * 各层边界附近的到期时间都不会提前或延误，每个任务只返回一次
+     */
+    @Test
+    void deadlinesAroundLevelBoundaries() {
+        long[] offsets = {999, 59_999, MINUTE, MINUTE + 1, HOUR - 1, HOUR, HOUR + 1, 2 * HOUR + 30 * MINUTE};
+        for (int i = 0; i < offsets.length; i++) {
+            wheel.add(i, START + offsets[i]);
+        }
+
+        Map<Long, Long> fired = run(START + 3 * HOUR, 500);
+
+        assertEquals(offsets.length, fired.size());
+        for (int i = 0; i < offsets.length; i++) {
+            assertFiredOnTime(START + offsets[i], fired.get((long) i));
+        }
+    }
+
+    /**
+     * 删除后以新的到期时间重新加入：旧的记录不再返回，按新的到期时间返回
+     */
+    @Test
+    void removeThenReAddUsesNewDeadline() {
+        wheel.add(1, START + 5_000);
+        wheel.add(2, START + 5_000);
+        wheel.remove(1);
+        wheel.add(1, START + 20 * MINUTE);
+        // 不删除直接以更早的到期时间重新加入
+        wheel.add(3, START + 40 * MINUTE);
+        wheel.add(3, START + 10_000);
+        assertEquals(3, wheel.size());
+
+        Map<Long, Long> fired = run(START + 45 * MINUTE, 500);
+
+        assertFiredOnTime(START + 5_000, fired.get(2L));
+        assertFiredOnTime(START + 20 * MINUTE, fired.get(1L));
+        assertFiredOnTime(START + 10_000, fired.get(3L));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * 长时间未推进：一次推进返回期间到期的所有任务，未到期的任务仍按时返回
+     */
+    @Test
+    void advanceAfterLongGap() {
+        wheel.add(1, START + 10 * MINUTE);
+        wheel.add(2, START + 90 * MINUTE);
+        wheel.add(3, START + 3 * HOUR);
+
+        assertEquals(List.of(1L, 2L), sorted(wheel.advance(START + 2 * HOUR)));
+        assertEquals(1, wheel.size());
+
+        Map<Long, Long> fired = run(START + 2 * HOUR, START + 4 * HOUR, 1000);
+        assertFiredOnTime(START + 3 * HOUR, fired.get(3L));
+    }
+
+    /**
+     * 没有任务时长时间未推进，之后加入的任务按时返回
+     */
+    @Test
+    void advanceAfterLongGapWhenEmpty() {
+        long later = START + 10L * 24 * HOUR;
+        assertTrue(wheel.advance(later).isEmpty());
+
+        wheel.add(1, later + 30_000);
+
+        assertTrue(wheel.advance(later + 29_000).isEmpty());
+        assertFiredOnTime(later + 30_000, run(later, later + MINUTE, 100).get(1L));
+    }
+
+    /**
+     * 加入时已到期：下次推进时返回；返回前删除或以未到期的时间重新加入时不返回
+     */
+    @Test
+    void addAlreadyOverdue() {
+        long now = START + 10_000;
+        wheel.advance(now);
+
+        wheel.add(1, START + 1_000);
+        wheel.add(2, START);
+        wheel.remove(2);
+        wheel.add(3, START + 2_000);
+        wheel.add(3, now + MINUTE);
+
+        assertEquals(List.of(1L), wheel.advance(now));
+        assertEquals(1, wheel.size());
+        assertFiredOnTime(now + MINUTE, run(now, now + 2 * MINUTE, 100).get(3L));
+    }
+
+    /**
+     * 从 START 开始按固定步长推进到 end，返回每个任务第一次返回时的推进时间，同一任务返回两次时失败
+     */
+    private Map<Long, Long> run(long end, long step) {
+        return run(START, end, step);
+    }
+
+    private Map<Long, Long> run(long from, long end, long step) {
+        Map<Long, Long> fired = new HashMap<>();
+        for (long now = from; now <= end; now += step) {
+            for (Long id : wheel.advance(now)) {
+                assertNull(fired.put(id, now), "任务重复返回：" + id);
+            }
+        }
+        return fired;
+    }
+
+    private static void assertFiredOnTime(long deadline, Long firedAt) {
+        assertNotNull(firedAt, "任务未返回");
+        assertTrue(firedAt >= deadline, "任务提前" + (deadline - firedAt) + "毫秒返回");
+        assertTrue(firedAt <= deadline + TICK + 1000, "任务延误" + (firedAt - deadline) + "毫秒");
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().toList();
+    }
+}